@@ -0,0 +1,23 @@
+package edu.uob;
+
+public enum AggregateFunction {
+    COUNT,
+    SUM,
+    AVG,
+    MIN,
+    MAX;
+
+    private static final KeywordTable<AggregateFunction> KEYWORDS = new KeywordTable<>(values());
+
+    public static AggregateFunction parse(String token) throws ParseException {
+        AggregateFunction keyword = KEYWORDS.lookup(token);
+        if (keyword == null) {
+            throw new ParseException("Invalid AggregateFunction: " + token);
+        }
+        return keyword;
+    }
+
+    public static boolean isAggregateFunction(String token) {
+        return KEYWORDS.lookup(token) != null;
+    }
+}
@@ -0,0 +1,16 @@
+package edu.uob;
+
+public class BeginCMD extends DBCmd {
+    public BeginCMD() {
+        super();
+    }
+
+    @Override
+    public String query(Session session) {
+        if (session.getTransaction() != null) {
+            return "[ERROR]: A transaction is already in progress";
+        }
+        session.setTransaction(new Transaction());
+        return "[OK]";
+    }
+}
@@ -0,0 +1,300 @@
+package edu.uob;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary wire protocol a client opts into by opening its connection with {@link #HANDSHAKE} instead of a command.
+ * Every message is a frame: its length, its type, the id of the request it belongs to, then its body.
+ * A request frame holds one command. It is answered by a result frame with the message and the typed columns,
+ * then by row batch frames holding the rows, each value tagged with its type and numbers sent as variable length integers.
+ * Values are only sent as numbers or booleans when they read back exactly as stored, and as strings otherwise.
+ */
+public class BinaryProtocol {
+    // Starts with a byte no text command starts with, so the server tells the protocols apart by the first byte
+    public static final byte[] HANDSHAKE = "\0DB-BINARY/1\n".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 1;
+    public static final int ROW_BATCH_SIZE = 256;
+    public static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    public static final byte ACCEPT_FRAME = 0;
+    public static final byte REQUEST_FRAME = 1;
+    public static final byte RESULT_FRAME = 2;
+    public static final byte ROW_BATCH_FRAME = 3;
+
+    private static final byte NULL_TAG = 0;
+    private static final byte INTEGER_TAG = 1;
+    private static final byte FLOAT_TAG = 2;
+    private static final byte BOOLEAN_TAG = 3;
+    private static final byte STRING_TAG = 4;
+
+    private BinaryProtocol() {}
+
+    public record Frame(byte type, int requestId, byte[] body) {}
+
+    /** A result read back by a client, with the type of every column as the server inferred it from the values. */
+    public record Response(int requestId, QueryResult result, List<ValueType> columnTypes) {}
+
+    /** Consumes the handshake when the connection starts with it, leaving the stream untouched otherwise. */
+    public static boolean acceptHandshake(BufferedInputStream input) throws IOException {
+        input.mark(1);
+        int firstByte = input.read();
+        input.reset();
+        if (firstByte != HANDSHAKE[0]) { return false; }
+        if (!Arrays.equals(input.readNBytes(HANDSHAKE.length), HANDSHAKE)) {
+            throw new IOException("Unknown protocol handshake");
+        }
+        return true;
+    }
+
+    public static void writeAccept(DataOutputStream output) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        new DataOutputStream(body).writeInt(VERSION);
+        writeFrame(output, ACCEPT_FRAME, 0, body);
+    }
+
+    /** Sends the handshake and waits for the server to accept it. */
+    public static void startSession(DataInputStream input, DataOutputStream output) throws IOException {
+        output.write(HANDSHAKE);
+        output.flush();
+        Frame frame = readFrame(input);
+        if (frame == null || frame.type() != ACCEPT_FRAME) {
+            throw new IOException("Server did not accept the binary protocol");
+        }
+    }
+
+    public static void writeRequest(DataOutputStream output, int requestId, String command) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(command.getBytes(StandardCharsets.UTF_8));
+        writeFrame(output, REQUEST_FRAME, requestId, body);
+    }
+
+    /** Returns the next frame, or null when the other side closed the connection between frames. */
+    public static Frame readFrame(DataInputStream input) throws IOException {
+        int length;
+        try {
+            length = input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 5 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte type = input.readByte();
+        int requestId = input.readInt();
+        byte[] body = new byte[length - 5];
+        input.readFully(body);
+        return new Frame(type, requestId, body);
+    }
+
+    private static void writeFrame(DataOutputStream output, byte type, int requestId, ByteArrayOutputStream body) throws IOException {
+        output.writeInt(body.size() + 5);
+        output.writeByte(type);
+        output.writeInt(requestId);
+        body.writeTo(output);
+    }
+
+    /** Sends the result of a request as a result frame followed by as many row batch frames as its rows need. */
+    public static void writeResult(DataOutputStream output, int requestId, QueryResult result) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream bodyOutput = new DataOutputStream(body);
+        writeString(bodyOutput, result.getMessage());
+        if (!result.hasRows()) {
+            writeVarInt(bodyOutput, -1);
+            writeFrame(output, RESULT_FRAME, requestId, body);
+            return;
+        }
+        List<String> titles = result.getTitles();
+        List<List<String>> rows = result.getRows();
+        // Every value is parsed for its tag once, the column types and the encoding both reading the same tags
+        byte[][] tags = new byte[rows.size()][];
+        for (int i = 0; i < rows.size(); i++) {
+            tags[i] = getTags(rows.get(i));
+        }
+        writeVarInt(bodyOutput, titles.size());
+        for (int i = 0; i < titles.size(); i++) {
+            writeString(bodyOutput, titles.get(i));
+            bodyOutput.writeByte(inferColumnTag(tags, i));
+        }
+        writeVarInt(bodyOutput, rows.size());
+        writeFrame(output, RESULT_FRAME, requestId, body);
+        for (int start = 0; start < rows.size(); start += ROW_BATCH_SIZE) {
+            int end = Math.min(rows.size(), start + ROW_BATCH_SIZE);
+            body.reset();
+            writeVarInt(bodyOutput, end - start);
+            for (int i = start; i < end; i++) {
+                List<String> row = rows.get(i);
+                for (int j = 0; j < row.size(); j++) {
+                    writeValue(bodyOutput, row.get(j), tags[i][j]);
+                }
+            }
+            writeFrame(output, ROW_BATCH_FRAME, requestId, body);
+        }
+    }
+
+    /** Reads the result frame of the next response and the row batches following it. */
+    public static Response readResponse(DataInputStream input) throws IOException {
+        Frame frame = readFrame(input);
+        if (frame == null) { throw new IOException("Server disconnected (end-of-stream)"); }
+        if (frame.type() != RESULT_FRAME) { throw new IOException("Expected a result frame, got frame type " + frame.type()); }
+        DataInputStream body = new DataInputStream(new ByteArrayInputStream(frame.body()));
+        String message = readString(body);
+        int columnAmount = readVarInt(body);
+        if (columnAmount < 0) {
+            return new Response(frame.requestId(), new QueryResult(message), List.of());
+        }
+        List<String> titles = new ArrayList<>(columnAmount);
+        List<ValueType> columnTypes = new ArrayList<>(columnAmount);
+        for (int i = 0; i < columnAmount; i++) {
+            titles.add(readString(body));
+            columnTypes.add(toValueType(body.readByte()));
+        }
+        int rowAmount = readVarInt(body);
+        List<List<String>> rows = new ArrayList<>(rowAmount);
+        while (rows.size() < rowAmount) {
+            Frame batchFrame = readFrame(input);
+            if (batchFrame == null || batchFrame.type() != ROW_BATCH_FRAME || batchFrame.requestId() != frame.requestId()) {
+                throw new IOException("Expected a row batch of request " + frame.requestId());
+            }
+            DataInputStream batch = new DataInputStream(new ByteArrayInputStream(batchFrame.body()));
+            int batchSize = readVarInt(batch);
+            for (int i = 0; i < batchSize; i++) {
+                List<String> row = new ArrayList<>(columnAmount);
+                for (int j = 0; j < columnAmount; j++) {
+                    row.add(readValue(batch));
+                }
+                rows.add(row);
+            }
+        }
+        return new Response(frame.requestId(), new QueryResult(message, titles, rows), columnTypes);
+    }
+
+    /** Returns the tag a value is sent with, which is the string tag unless the value reads back exactly as stored. */
+    private static byte getTag(String value) {
+        switch (ValueType.parseType(value)) {
+            case NULL -> { return value.equals("NULL") ? NULL_TAG : STRING_TAG; }
+            case BOOLEAN -> { return value.equals("TRUE") || value.equals("FALSE") ? BOOLEAN_TAG : STRING_TAG; }
+            case INTEGER -> {
+                try {
+                    return Long.toString(Long.parseLong(value)).equals(value) ? INTEGER_TAG : STRING_TAG;
+                } catch (NumberFormatException e) {
+                    return STRING_TAG;
+                }
+            }
+            case FLOAT -> { return Double.toString(Double.parseDouble(value)).equals(value) ? FLOAT_TAG : STRING_TAG; }
+            default -> { return STRING_TAG; }
+        }
+    }
+
+    private static byte[] getTags(List<String> row) {
+        byte[] tags = new byte[row.size()];
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = getTag(row.get(i));
+        }
+        return tags;
+    }
+
+    /** Types a column by the tags of its values: a single tag, numbers mixing integers and floats, or strings. */
+    private static byte inferColumnTag(byte[][] tags, int columnIndex) {
+        byte columnTag = NULL_TAG;
+        for (byte[] rowTags : tags) {
+            byte tag = rowTags[columnIndex];
+            if (tag == NULL_TAG || tag == columnTag) { continue; }
+            if (columnTag == NULL_TAG) {
+                columnTag = tag;
+            } else if ((tag == FLOAT_TAG || tag == INTEGER_TAG) && (columnTag == FLOAT_TAG || columnTag == INTEGER_TAG)) {
+                columnTag = FLOAT_TAG;
+            } else {
+                return STRING_TAG;
+            }
+        }
+        return columnTag;
+    }
+
+    private static ValueType toValueType(byte tag) throws IOException {
+        return switch (tag) {
+            case NULL_TAG -> ValueType.NULL;
+            case INTEGER_TAG -> ValueType.INTEGER;
+            case FLOAT_TAG -> ValueType.FLOAT;
+            case BOOLEAN_TAG -> ValueType.BOOLEAN;
+            case STRING_TAG -> ValueType.STRING;
+            default -> throw new IOException("Unknown value tag " + tag);
+        };
+    }
+
+    private static void writeValue(DataOutputStream output, String value, byte tag) throws IOException {
+        output.writeByte(tag);
+        switch (tag) {
+            case INTEGER_TAG -> writeVarLong(output, Long.parseLong(value));
+            case FLOAT_TAG -> output.writeDouble(Double.parseDouble(value));
+            case BOOLEAN_TAG -> output.writeBoolean(value.equals("TRUE"));
+            case STRING_TAG -> writeString(output, value);
+            default -> { }
+        }
+    }
+
+    private static String readValue(DataInputStream input) throws IOException {
+        byte tag = input.readByte();
+        return switch (tag) {
+            case NULL_TAG -> "NULL";
+            case INTEGER_TAG -> Long.toString(readVarLong(input));
+            case FLOAT_TAG -> Double.toString(input.readDouble());
+            case BOOLEAN_TAG -> input.readBoolean() ? "TRUE" : "FALSE";
+            case STRING_TAG -> readString(input);
+            default -> throw new IOException("Unknown value tag " + tag);
+        };
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(output, bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = readVarInt(input);
+        if (length < 0) { throw new IOException("Invalid string length " + length); }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        writeVarLong(output, value);
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        return Math.toIntExact(readVarLong(input));
+    }
+
+    /** Writes the value zigzag encoded, seven bits a byte, so small numbers of either sign take a single byte. */
+    private static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            output.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        output.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInputStream input) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte nextByte = input.readByte();
+            zigzag |= (long) (nextByte & 0x7F) << shift;
+            if ((nextByte & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Variable length integer is too long");
+    }
+}
@@ -0,0 +1,97 @@
+package edu.uob;
+
+import java.io.FileNotFoundException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import edu.uob.InterpretException.FailedReadingFileException;
+
+/**
+ * Databases loaded by the server, shared by every session using them.
+ * A database is read from disk by the first session using it and dropped from memory once the last one lets go.
+ * Reading happens outside the catalog's lock, which only guards the reference counts, so a slow load only holds up
+ * the sessions waiting for that same database.
+ */
+public class Catalog {
+    private final ConcurrentHashMap<String, LoadedDatabase> databases = new ConcurrentHashMap<>();
+
+    public interface DatabaseLoader {
+        Database load(String dbName) throws FailedReadingFileException, FileNotFoundException;
+    }
+
+    /** Returns the loaded database of the given name, loading it first when no session is using it yet. */
+    public Database acquire(String dbName, DatabaseLoader loader) throws FailedReadingFileException, FileNotFoundException {
+        String key = dbName.toLowerCase();
+        LoadedDatabase loadedDatabase;
+        while (true) {
+            loadedDatabase = databases.computeIfAbsent(key, name -> new LoadedDatabase());
+            synchronized (this) {
+                // The entry may have been released, dropped or failed to load since it was looked up
+                if (databases.get(key) == loadedDatabase) {
+                    loadedDatabase.referenceCount++;
+                    break;
+                }
+            }
+        }
+        if (loadedDatabase.isLoadStarted.compareAndSet(false, true)) {
+            try {
+                loadedDatabase.database.complete(loader.load(dbName));
+            } catch (Throwable e) {
+                loadedDatabase.database.completeExceptionally(e);
+            }
+        }
+        try {
+            return loadedDatabase.database.join();
+        } catch (CompletionException e) {
+            forget(key, loadedDatabase);
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /** Takes back a failed load, so the next session using the database reads it again. */
+    private synchronized void forget(String key, LoadedDatabase loadedDatabase) {
+        loadedDatabase.referenceCount--;
+        databases.remove(key, loadedDatabase);
+    }
+
+    private static RuntimeException rethrow(Throwable cause) throws FailedReadingFileException, FileNotFoundException {
+        if (cause instanceof FailedReadingFileException e) { throw e; }
+        if (cause instanceof FileNotFoundException e) { throw e; }
+        if (cause instanceof Error e) { throw e; }
+        if (cause instanceof RuntimeException e) { return e; }
+        return new IllegalStateException(cause);
+    }
+
+    public synchronized void release(Database database) {
+        String key = database.getDBName().toLowerCase();
+        LoadedDatabase loadedDatabase = databases.get(key);
+        if (loadedDatabase == null || loadedDatabase.database.getNow(null) != database) { return; }
+        loadedDatabase.referenceCount--;
+        if (loadedDatabase.referenceCount <= 0) {
+            databases.remove(key, loadedDatabase);
+        }
+    }
+
+    /** Forgets a deleted database, marking it so the sessions still holding it, or still loading it, stop using it. */
+    public synchronized void drop(String dbName) {
+        LoadedDatabase loadedDatabase = databases.remove(dbName.toLowerCase());
+        if (loadedDatabase == null) { return; }
+        loadedDatabase.database.thenAccept(Database::markDropped);
+    }
+
+    public boolean isLoaded(String dbName) {
+        return databases.containsKey(dbName.toLowerCase());
+    }
+
+    public synchronized int getReferenceCount(String dbName) {
+        LoadedDatabase loadedDatabase = databases.get(dbName.toLowerCase());
+        return loadedDatabase == null ? 0 : loadedDatabase.referenceCount;
+    }
+
+    private static class LoadedDatabase {
+        private final CompletableFuture<Database> database = new CompletableFuture<>();
+        private final AtomicBoolean isLoadStarted = new AtomicBoolean(false);
+        private int referenceCount = 0;
+    }
+}
@@ -0,0 +1,52 @@
+package edu.uob;
+
+/** Classifies the characters of a query through a lookup table, one array read per character. */
+public class CharClass {
+    private static final byte LETTER = 1;
+    private static final byte DIGIT = 2;
+    private static final byte SYMBOL = 4;
+    private static final byte SPACE = 8;
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char character = 'a'; character <= 'z'; character++) {
+            CLASSES[character] = LETTER;
+            CLASSES[Character.toUpperCase(character)] = LETTER;
+        }
+        for (char character = '0'; character <= '9'; character++) {
+            CLASSES[character] = DIGIT;
+        }
+        for (char character : "!#$%&()*+,-./:;>=<?@[\\]^_`{}~".toCharArray()) {
+            CLASSES[character] = SYMBOL;
+        }
+        CLASSES[' '] = SPACE;
+    }
+
+    private CharClass() {}
+
+    public static boolean isLetter(char character) {
+        return isOfClass(character, LETTER);
+    }
+
+    public static boolean isDigit(char character) {
+        return isOfClass(character, DIGIT);
+    }
+
+    public static boolean isSymbol(char character) {
+        return isOfClass(character, SYMBOL);
+    }
+
+    /** Letters and digits, the only characters allowed in database, table and attribute names. */
+    public static boolean isPlainText(char character) {
+        return isOfClass(character, (byte) (LETTER | DIGIT));
+    }
+
+    /** Characters allowed between the quotes of a string literal. */
+    public static boolean isCharLiteral(char character) {
+        return isOfClass(character, (byte) (LETTER | DIGIT | SYMBOL | SPACE));
+    }
+
+    private static boolean isOfClass(char character, byte classes) {
+        return character < CLASSES.length && (CLASSES[character] & classes) != 0;
+    }
+}
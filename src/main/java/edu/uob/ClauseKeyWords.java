@@ -0,0 +1,34 @@
+package edu.uob;
+
+/**
+ * Keywords that only carry meaning at a specific position of a clause.
+ * Unlike {@link DBKeyWords} they are not reserved, so existing tables may keep using them as names.
+ */
+public enum ClauseKeyWords {
+    LIMIT,
+    OFFSET,
+    ORDER,
+    BY,
+    ASC,
+    DESC,
+    GROUP,
+    DISTINCT,
+    AS,
+    DATA,
+    CURSOR,
+    FOR;
+
+    private static final KeywordTable<ClauseKeyWords> KEYWORDS = new KeywordTable<>(values());
+
+    public static ClauseKeyWords parse(String token) throws ParseException {
+        ClauseKeyWords keyword = KEYWORDS.lookup(token);
+        if (keyword == null) {
+            throw new ParseException("Invalid ClauseKeyWords: " + token);
+        }
+        return keyword;
+    }
+
+    public static boolean isTargetType(ClauseKeyWords targetType, String value) {
+        return KEYWORDS.lookup(value) == targetType;
+    }
+}
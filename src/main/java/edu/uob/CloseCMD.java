@@ -0,0 +1,19 @@
+package edu.uob;
+
+public class CloseCMD extends DBCmd {
+    protected String cursorName;
+
+    public CloseCMD() {
+        super();
+    }
+
+    @Override
+    public String query(Session session) {
+        ResultCursor cursor = session.removeCursor(cursorName);
+        if (cursor == null) {
+            return "[ERROR]: No cursor called " + cursorName;
+        }
+        cursor.close();
+        return "[OK]";
+    }
+}
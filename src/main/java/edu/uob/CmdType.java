@@ -9,20 +9,43 @@ public enum CmdType {
     SELECT,
     UPDATE,
     DELETE,
-    JOIN;
+    JOIN,
+    LOAD,
+    PREPARE,
+    EXECUTE,
+    DEALLOCATE,
+    BEGIN,
+    COMMIT,
+    ROLLBACK,
+    DECLARE,
+    FETCH,
+    CLOSE;
+
+    private static final KeywordTable<CmdType> KEYWORDS = new KeywordTable<>(values());
 
     public static CmdType parse(String token) throws ParseException {
-        return switch (token.toUpperCase()) {
-            case "USE" -> USE;
-            case "CREATE" -> CREATE;
-            case "DROP" -> DROP;
-            case "ALTER" -> ALTER;
-            case "INSERT" -> INSERT;
-            case "SELECT" -> SELECT;
-            case "UPDATE" -> UPDATE;
-            case "DELETE" -> DELETE;
-            case "JOIN" -> JOIN;
-            default -> throw new ParseException("Invalid CommandType: " + token);
+        CmdType keyword = KEYWORDS.lookup(token);
+        if (keyword == null) {
+            throw new ParseException("Invalid CommandType: " + token);
+        }
+        return keyword;
+    }
+
+    public static boolean isCmdType(String token) {
+        return KEYWORDS.lookup(token) != null;
+    }
+
+    /** Whether the token starts a command managing prepared statements rather than data. */
+    public static boolean isPreparedStatementCmd(String token) {
+        CmdType cmdType = KEYWORDS.lookup(token);
+        return cmdType == PREPARE || cmdType == EXECUTE || cmdType == DEALLOCATE;
+    }
+
+    /** Whether commands of this type read or change rows, and so may be prepared with placeholders. */
+    public boolean isPreparable() {
+        return switch (this) {
+            case SELECT, INSERT, UPDATE, DELETE, JOIN, LOAD -> true;
+            default -> false;
         };
     }
 }
@@ -0,0 +1,74 @@
+package edu.uob;
+
+/**
+ * Null count and value range of one column, kept up to date by {@link Table} on every mutation and copied into every snapshot.
+ * The types of the range ends are kept with them, so a value taken in or out is the only one classified.
+ */
+public class ColumnStatistics {
+    private int nullCount = 0;
+    private String min;
+    private ValueType minType;
+    private String max;
+    private ValueType maxType;
+
+    public void add(String value) {
+        ValueType type = ValueType.parseType(value);
+        if (type == ValueType.NULL) {
+            nullCount++;
+            return;
+        }
+        if (min == null || ValueType.compareValues(value, type, min, minType) < 0) {
+            min = value;
+            minType = type;
+        }
+        if (max == null || ValueType.compareValues(value, type, max, maxType) > 0) {
+            max = value;
+            maxType = type;
+        }
+    }
+
+    /**
+     * Takes a value out of the statistics, returning false when it was the smallest or largest value,
+     * as the new range is then only known by reading the column again.
+     */
+    public boolean remove(String value) {
+        ValueType type = ValueType.parseType(value);
+        if (type == ValueType.NULL) {
+            nullCount--;
+            return true;
+        }
+        return ValueType.compareValues(value, type, min, minType) != 0 && ValueType.compareValues(value, type, max, maxType) != 0;
+    }
+
+    public ColumnStatistics copy() {
+        ColumnStatistics copy = new ColumnStatistics();
+        copy.nullCount = nullCount;
+        copy.min = min;
+        copy.minType = minType;
+        copy.max = max;
+        copy.maxType = maxType;
+        return copy;
+    }
+
+    public void reset() {
+        nullCount = 0;
+        min = null;
+        minType = null;
+        max = null;
+        maxType = null;
+    }
+
+    public int getNullCount() {
+        return nullCount;
+    }
+
+    /** Returns the smallest non-NULL value, or NULL when the column only holds NULL values. */
+    public String getMin() {
+        return min == null ? "NULL" : min;
+    }
+
+    /** Returns the largest non-NULL value, or NULL when the column only holds NULL values. */
+    public String getMax() {
+        return max == null ? "NULL" : max;
+    }
+}
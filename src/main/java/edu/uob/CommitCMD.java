@@ -0,0 +1,28 @@
+package edu.uob;
+
+public class CommitCMD extends DBCmd {
+    public CommitCMD() {
+        super();
+    }
+
+    /** Publishes the writes of the transaction, then saves every table it wrote once, before unlocking them. */
+    @Override
+    public String query(Session session) {
+        Transaction transaction = session.getTransaction();
+        if (transaction == null) {
+            return "[ERROR]: No transaction in progress";
+        }
+        session.setTransaction(null);
+        try {
+            transaction.commit();
+            for (Table table : transaction.getTables()) {
+                saveTable(session, table);
+            }
+            return "[OK]";
+        } catch (Exception e) {
+            return "[ERROR]: Failed saving committed transaction--" + e.getMessage();
+        } finally {
+            transaction.release();
+        }
+    }
+}
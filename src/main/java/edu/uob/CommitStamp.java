@@ -0,0 +1,19 @@
+package edu.uob;
+
+/**
+ * Commit timestamp shared by every row version one write creates.
+ * It stays uncommitted, and so invisible to every reader, until the write is published with a timestamp.
+ */
+public class CommitStamp {
+    public static final long UNCOMMITTED = Long.MAX_VALUE;
+
+    private volatile long timestamp = UNCOMMITTED;
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    protected void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
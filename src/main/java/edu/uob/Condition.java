@@ -9,6 +9,7 @@ public class Condition {
     protected String value;
     protected String boolOperator;
     protected List<Condition> subConditions;
+    protected int parameterIndex = -1;
 
     public Condition(String attribute, String comparator, String value) {
         this.attributeName = attribute;
@@ -20,4 +21,17 @@ public class Condition {
         this.subConditions = Arrays.asList(firstCondition, secondCondition);
         this.boolOperator = operator;
     }
+
+    /** Returns a copy of the conditions with their placeholders replaced by the given literals. */
+    public Condition bind(List<Token> parameters) throws ParseException {
+        if (subConditions != null) {
+            return new Condition(subConditions.get(0).bind(parameters), boolOperator, subConditions.get(1).bind(parameters));
+        }
+        if (parameterIndex < 0) { return this; }
+        Token literal = parameters.get(parameterIndex);
+        if (!literal.getType().isLiteral()) {
+            throw new ParseException("Invalid Condition Command: Invalid Value");
+        }
+        return new Condition(attributeName, comparator, literal.getText());
+    }
 }
@@ -4,9 +4,6 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import edu.uob.InterpretException.FailedCreatingFileException;
 import edu.uob.TableException.ColumnAlreadyExistException;
 import edu.uob.TableException.TableAlreadyExistException;
@@ -15,36 +12,28 @@ import edu.uob.TableException.UsingReservedWordException;
 public class CreateCMD extends DBCmd {
     public CreateCMD() {
         super();
-        tableNames = new ArrayList<>();
-        colNames = new ArrayList<>();
-        currentIdx = 1;
     }
 
     @Override
-    public String query(DBServer server) {
-        if (DBKeyWords.isTargetType(DBKeyWords.DATABASE, server.getTokens()[currentIdx])) {
-            currentIdx++;
-            return createDatabase(server);
+    protected boolean isSchemaChange() {
+        return true;
+    }
+
+    @Override
+    public String query(Session session) {
+        if (dbName != null) {
+            return createDatabase(session);
         }
         try {
-            currentIdx++;
-            queryTableName(server);
+            checkTableNames();
             String tableName = tableNames.get(0);
-            Table table = new Table(tableName, 0);
-            if (server.getTokens().length > currentIdx && !server.getTokens()[currentIdx].equals("(")) {
-                table.addColumn(table.getPk());
-                createTable(server, new String[]{table.getPk()});
-                server.getDB().addTable(table);
-                return "[OK]";
-            }
-            currentIdx++;
-            queryAttributeList(server);
+            Table table = new Table(tableName, new PrimaryKeySequence(getTablePath(session), 0, 0));
             table.addColumn(table.getPk());
             for (String col : colNames) {
                 table.addColumn(col);
             }
-            createTable(server, table.getTitles());
-            server.getDB().addTable(table);
+            createTable(session, table.getTitles());
+            session.getDB().addTable(table);
         } catch (ColumnAlreadyExistException | IOException | TableAlreadyExistException
                  | FailedCreatingFileException e) {
             return "[ERROR]: Failed creating table--" + e.getMessage();
@@ -56,10 +45,14 @@ public class CreateCMD extends DBCmd {
         return "[OK]";
     }
 
-    private void createTable(DBServer server, String[] cols) throws IOException, TableAlreadyExistException, FailedCreatingFileException {
+    private String getTablePath(Session session) {
+        String dbName = session.getDB().getDBName();
+        return session.getStorageFolderPath() + File.separator + dbName + File.separator + tableNames.get(0).toLowerCase();
+    }
+
+    private void createTable(Session session, String[] cols) throws IOException, TableAlreadyExistException, FailedCreatingFileException {
         String tableName = tableNames.get(0).toLowerCase();
-        String dbName = server.getDB().getDBName();
-        String tablePath = server.getStorageFolderPath() + File.separator + dbName + File.separator + tableName;
+        String tablePath = getTablePath(session);
         File file = new File(tablePath + ".tab");
 
         boolean isCreated = file.createNewFile();
@@ -74,12 +67,12 @@ public class CreateCMD extends DBCmd {
         }
     }
 
-    private String createDatabase(DBServer server) {
-        String dbName = server.getTokens()[currentIdx].toLowerCase();
+    private String createDatabase(Session session) {
+        String dbName = this.dbName.toLowerCase();
         if (DBKeyWords.isKeyword(dbName)) {
             return "[ERROR]: Cannot uee reserved word " + dbName;
         }
-        String dbPath = server.getStorageFolderPath() + File.separator + dbName;
+        String dbPath = session.getStorageFolderPath() + File.separator + dbName;
         File directory = new File(dbPath);
         if (directory.exists()) {
             return "[ERROR]: Database " + dbName + " already exist";
@@ -89,25 +82,4 @@ public class CreateCMD extends DBCmd {
         }
         return "[OK]";
     }
-
-    private void queryAttributeList(DBServer server) {
-        queryAttributeName(server);
-        if (!server.getTokens()[currentIdx].equals(",")) { return; }
-        currentIdx++;
-        queryAttributeList(server);
-    }
-
-    private void queryAttributeName(DBServer server) {
-        String token = server.getTokens()[currentIdx];
-        String patternString = "\\.";
-        Pattern pattern = Pattern.compile(patternString);
-        Matcher matcher = pattern.matcher(token);
-        if (matcher.find()) {
-            String[] texts = token.split("\\.");
-            colNames.add(texts[1]);
-        } else {
-            colNames.add(token);
-        }
-        currentIdx++;
-    }
 }
@@ -1,38 +1,112 @@
 package edu.uob;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DBClient {
 
     private static final char END_OF_TRANSMISSION = 4;
+    public static final int PIPELINE_DEPTH = 32;
 
+    /** Talks the text protocol, or the binary one when started with "binary". */
     public static void main(String[] args) throws IOException {
         BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
         Socket socket = new Socket("localhost", 8888);
+        if (args.length > 0 && args[0].equalsIgnoreCase("binary")) {
+            DataInputStream socketInput = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream socketOutput = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            BinaryProtocol.startSession(socketInput, socketOutput);
+            while (!Thread.interrupted()) {
+                for (QueryResult result : sendBinaryCommands(readNextCommands(input), socketInput, socketOutput)) {
+                    System.out.println(result);
+                }
+            }
+            return;
+        }
         BufferedReader socketReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
         BufferedWriter socketWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
         while (!Thread.interrupted()) {
-            handleNextCommand(input, socketReader, socketWriter);
+            handleNextCommands(input, socketReader, socketWriter);
+        }
+    }
+
+    /** Sends the next command typed, together with every further command already waiting, e.g. when a script is piped in. */
+    private static void handleNextCommands(BufferedReader commandLine, BufferedReader socketReader, BufferedWriter socketWriter) throws IOException {
+        for (String response : sendCommands(readNextCommands(commandLine), socketReader, socketWriter)) {
+            System.out.print(response);
         }
     }
 
-    private static void handleNextCommand(BufferedReader commandLine, BufferedReader socketReader, BufferedWriter socketWriter) throws IOException {
+    private static List<String> readNextCommands(BufferedReader commandLine) throws IOException {
         System.out.print("SQL:> ");
         String command = commandLine.readLine();
-        socketWriter.write(command + "\n");
-        socketWriter.flush();
+        if (command == null) {
+            throw new IOException("No more commands (end-of-stream)");
+        }
+        List<String> commands = new ArrayList<>();
+        commands.add(command);
+        while (commandLine.ready() && (command = commandLine.readLine()) != null) {
+            commands.add(command);
+        }
+        return commands;
+    }
+
+    /** Sends the commands as binary requests, pipelined like {@link #sendCommands}, and returns their results in order. */
+    public static List<QueryResult> sendBinaryCommands(List<String> commands, DataInputStream socketInput, DataOutputStream socketOutput) throws IOException {
+        List<QueryResult> results = new ArrayList<>(commands.size());
+        int sentAmount = 0;
+        while (results.size() < commands.size()) {
+            while (sentAmount < commands.size() && sentAmount - results.size() < PIPELINE_DEPTH) {
+                BinaryProtocol.writeRequest(socketOutput, sentAmount, commands.get(sentAmount));
+                sentAmount++;
+            }
+            socketOutput.flush();
+            BinaryProtocol.Response response = BinaryProtocol.readResponse(socketInput);
+            if (response.requestId() != results.size()) {
+                throw new IOException("Expected the response to request " + results.size() + ", got " + response.requestId());
+            }
+            results.add(response.result());
+        }
+        return results;
+    }
+
+    /**
+     * Sends the commands without waiting for each response before sending the next, keeping at most
+     * {@link #PIPELINE_DEPTH} of them unanswered, and returns the responses in the order of the commands.
+     */
+    public static List<String> sendCommands(List<String> commands, BufferedReader socketReader, BufferedWriter socketWriter) throws IOException {
+        List<String> responses = new ArrayList<>(commands.size());
+        int sentAmount = 0;
+        while (responses.size() < commands.size()) {
+            while (sentAmount < commands.size() && sentAmount - responses.size() < PIPELINE_DEPTH) {
+                socketWriter.write(commands.get(sentAmount++) + "\n");
+            }
+            socketWriter.flush();
+            responses.add(readResponse(socketReader));
+        }
+        return responses;
+    }
+
+    private static String readResponse(BufferedReader socketReader) throws IOException {
         String incomingMessage = socketReader.readLine();
         if (incomingMessage == null) {
             throw new IOException("Server disconnected (end-of-stream)");
         }
+        StringBuilder response = new StringBuilder();
         while (incomingMessage != null && !incomingMessage.contains("" + END_OF_TRANSMISSION + "")) {
-            System.out.println(incomingMessage);
+            response.append(incomingMessage).append('\n');
             incomingMessage = socketReader.readLine();
         }
+        return response.toString();
     }
 }
@@ -4,6 +4,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import edu.uob.InterpretException.FailedCreatingFileException;
 import edu.uob.InterpretException.StringWithNoQuoteException;
@@ -11,78 +12,176 @@ import edu.uob.TableException.NoTableFoundException;
 import edu.uob.TableException.UsingReservedWordException;
 
 public abstract class DBCmd {
-    protected List<String> tableNames;
-    protected List<String> colNames;
+    protected List<String> tableNames = new ArrayList<>();
+    protected List<String> colNames = new ArrayList<>();
     protected String dbName;
-    protected int currentIdx;
+    protected Condition condition;
+    protected int parameterAmount = 0;
 
-    protected abstract String query(DBServer server);
+    protected abstract String query(Session session);
 
-    protected boolean isMatchConditions(Condition condition, String[] titles, String[] row) throws StringWithNoQuoteException {
+    /** Runs the command like {@link #query(Session)}, keeping the rows it reads apart from its message. */
+    protected QueryResult execute(Session session) {
+        return new QueryResult(query(session));
+    }
+
+    /**
+     * Returns the command with its placeholders replaced by the given literals, in placeholder order.
+     * The command itself is left untouched, so a parsed template can be bound again and again.
+     */
+    protected DBCmd bind(List<Token> parameters) throws ParseException {
+        checkParameterAmount(parameters);
+        return this;
+    }
+
+    /** Checks a literal bound to a value placeholder and resolves it the way the parser resolves literals. */
+    protected static String bindValue(Token literal) throws ParseException {
+        if (!literal.getType().isLiteral()) {
+            throw new ParseException("Invalid Value " + literal);
+        }
+        return literal.getValue();
+    }
+
+    protected static int bindRowAmount(Token literal) throws ParseException {
+        if (!Parser.isRowAmount(literal)) {
+            throw new ParseException("Invalid row amount " + literal + ": Row amount should be a non-negative integer");
+        }
+        return Parser.parseRowAmount(literal);
+    }
+
+    protected void checkParameterAmount(List<Token> parameters) throws ParseException {
+        if (parameters.size() != parameterAmount) {
+            throw new ParseException("Expected " + parameterAmount + " parameters, but got " + parameters.size());
+        }
+    }
+
+    /** Work on a locked table, failing the way the command running it fails. */
+    protected interface TableAccess {
+        String run() throws Exception;
+    }
+
+    /** Work on snapshots of tables, in the order the tables were given. */
+    protected interface SnapshotAccess<T> {
+        T run(List<TableSnapshot> snapshots) throws Exception;
+    }
+
+    /**
+     * Reads the tables as of one commit timestamp, pinned for the whole read, so a reader sees every table in the same
+     * committed state, never waits for writers and keeps the row versions it reads from being collected.
+     * Tables the session's transaction has written are read with its pending writes.
+     */
+    protected static <T> T readTables(Session session, List<Table> tables, SnapshotAccess<T> read) throws Exception {
+        long timestamp = VersionClock.pin();
+        try {
+            List<TableSnapshot> snapshots = new ArrayList<>(tables.size());
+            for (Table table : tables) {
+                snapshots.add(getReadSnapshot(session, table, timestamp));
+            }
+            return read.run(snapshots);
+        } finally {
+            VersionClock.unpin(timestamp);
+        }
+    }
+
+    /** Returns the snapshot the session reads at a pinned timestamp, holding its own pending writes to the table. */
+    protected static TableSnapshot getReadSnapshot(Session session, Table table, long timestamp) {
+        Transaction transaction = session.getTransaction();
+        boolean isWritten = transaction != null && transaction.isJoined(table);
+        return isWritten ? table.getWorkingSnapshot() : table.getSnapshot(timestamp);
+    }
+
+    /** Writes the table under its write lock, which the session's transaction keeps until it ends. */
+    protected static String writeTable(Session session, Table table, TableAccess write) throws Exception {
+        Transaction transaction = session.getTransaction();
+        if (transaction != null) {
+            transaction.join(table);
+            return write.run();
+        }
+        table.lockForWrite();
+        try {
+            return write.run();
+        } finally {
+            table.unlockForWrite();
+        }
+    }
+
+    /** Whether the command changes which tables or columns exist. */
+    protected boolean isSchemaChange() {
+        return false;
+    }
+
+    /** Whether the command may run inside a transaction, which only holds writes to rows. */
+    protected boolean isTransactional() {
+        return !isSchemaChange();
+    }
+
+    /** Evaluates the conditions against the current row of the cursor, reading only the columns they refer to. */
+    protected boolean isMatchConditions(Condition condition, RowCursor cursor) throws StringWithNoQuoteException {
         boolean hasSubConditions = condition.subConditions != null && condition.subConditions.size() > 0;
-        return hasSubConditions ? isMatchSubConditions(condition, titles, row) : isMatchOneCondition(condition, titles, row);
+        return hasSubConditions ? isMatchSubConditions(condition, cursor) : isMatchOneCondition(condition, cursor);
     }
 
-    protected boolean isMatchSubConditions(Condition condition, String[] titles, String[] row) throws StringWithNoQuoteException {
-        boolean isMatchFirstConds = isMatchConditions(condition.subConditions.get(0), titles, row);
-        boolean isMatchSecondConds = isMatchConditions(condition.subConditions.get(1), titles, row);
+    protected boolean isMatchSubConditions(Condition condition, RowCursor cursor) throws StringWithNoQuoteException {
+        boolean isMatchFirstConds = isMatchConditions(condition.subConditions.get(0), cursor);
+        boolean isMatchSecondConds = isMatchConditions(condition.subConditions.get(1), cursor);
         boolean isBooleanOperator = DBKeyWords.isTargetType(DBKeyWords.AND, condition.boolOperator);
         return isBooleanOperator ? isMatchFirstConds && isMatchSecondConds : isMatchFirstConds || isMatchSecondConds;
     }
 
-    protected boolean isMatchOneCondition(Condition condition, String[] titles, String[] row) throws StringWithNoQuoteException {
-        int columnIndex = getIndexInTitles(titles, condition.attributeName);
+    protected boolean isMatchOneCondition(Condition condition, RowCursor cursor) throws StringWithNoQuoteException {
+        int columnIndex = cursor.getColumnIdxByName(condition.attributeName);
+        return isMatchValue(condition, cursor.getValue(columnIndex));
+    }
+
+    private boolean isMatchValue(Condition condition, String rawValue) throws StringWithNoQuoteException {
         String conditionValue = condition.value;
-        boolean isInvalidCompare = ValueType.isComparableTypes(row[columnIndex], conditionValue);
+        boolean isInvalidCompare = ValueType.isComparableTypes(rawValue, conditionValue);
         if (!isInvalidCompare) { return false; }
         boolean isString = ValueType.parseType(conditionValue).equals(ValueType.STRING);
         if (isString) {
             conditionValue = ValueType.retrieveStringFromQuote(conditionValue);
         }
-        return ValueType.compareRawToTargetValue(condition.comparator, row[columnIndex], conditionValue);
+        return ValueType.compareRawToTargetValue(condition.comparator, rawValue, conditionValue);
     }
 
-    private int getIndexInTitles(String[] titles, String title) {
-        for (int i = 0; i < titles.length; i++) {
-            if (titles[i].equalsIgnoreCase(title)) {
-                return i;
-            }
-        }
-        return -1;
+    /** Saves the table written by the command, or leaves it to the commit of the session's transaction. */
+    protected void saveTable(Session session) throws IOException, NoTableFoundException, FailedCreatingFileException {
+        if (session.getTransaction() != null) { return; }
+        saveTable(session, session.getDB().getTableByName(tableNames.get(0)));
     }
 
-    protected void saveTable(DBServer server) throws IOException, NoTableFoundException, FailedCreatingFileException {
-        String tableName = tableNames.get(0);
-        String dbName = server.getDB().getDBName();
-        String tablePath = server.getStorageFolderPath() + File.separator + dbName + File.separator + tableName;
+    protected static void saveTable(Session session, Table table) throws IOException, FailedCreatingFileException {
+        String tableName = table.getName();
+        String dbName = session.getDB().getDBName();
+        String tablePath = session.getStorageFolderPath() + File.separator + dbName + File.separator + tableName;
 
         File file = new File(tablePath + ".tab");
         try (FileWriter writer = new FileWriter(file);
              BufferedWriter bufferWriter = new BufferedWriter(writer)) {
-            Table table = server.getDB().getTableByName(tableName);
             String[] titles = table.getTitles();
             bufferWriter.write(String.join("\t", titles));
-            String[][] values = table.getDataValues();
-            for (String[] rowValues : values) {
+            RowCursor cursor = table.openCursor();
+            while (cursor.next()) {
                 bufferWriter.newLine();
-                bufferWriter.write(String.join("\t", rowValues));
+                for (int i = 0; i < titles.length; i++) {
+                    if (i > 0) { bufferWriter.write('\t'); }
+                    bufferWriter.write(cursor.getValue(i));
+                }
             }
-            saveConfig(tablePath, table.getLastPrimaryKey());
         } catch (Exception e) {
             throw new FailedCreatingFileException("table: " + tableName);
         }
     }
 
-    protected void queryTableName(DBServer server) throws UsingReservedWordException {
-        String tableName = server.getTokens()[currentIdx].toLowerCase();
-        if (DBKeyWords.isKeyword(tableName)) {
-            throw new UsingReservedWordException(tableName);
+    protected void checkTableNames() throws UsingReservedWordException {
+        for (String tableName : tableNames) {
+            if (DBKeyWords.isKeyword(tableName)) {
+                throw new UsingReservedWordException(tableName);
+            }
         }
-        tableNames.add(tableName);
-        currentIdx++;
     }
 
-    protected void saveConfig(String tablePath, int lastPk) throws FailedCreatingFileException, IOException {
+    protected static void saveConfig(String tablePath, int lastPk) throws FailedCreatingFileException, IOException {
         String filePath = tablePath + "_config.tab";
         File configFile = new File(filePath);
         if (!configFile.exists() && !configFile.createNewFile()) {
@@ -18,40 +18,21 @@ public enum DBKeyWords {
     ADD,
     DROP;
 
+    private static final KeywordTable<DBKeyWords> KEYWORDS = new KeywordTable<>(values());
+
     public static DBKeyWords parse(String token) throws ParseException {
-        return switch (token.toUpperCase()) {
-            case "DATABASE" -> DATABASE;
-            case "TABLE" -> TABLE;
-            case "INTO" -> INTO;
-            case "VALUES" -> VALUES;
-            case "FROM" -> FROM;
-            case "WHERE" -> WHERE;
-            case "AND" -> AND;
-            case "OR" -> OR;
-            case "SET" -> SET;
-            case "ON" -> ON;
-            case "TRUE" -> TRUE;
-            case "FALSE" -> FALSE;
-            case "NULL" -> NULL;
-            case "ADD" -> ADD;
-            case "DROP" -> DROP;
-            case "LIKE" -> LIKE;
-            default -> throw new ParseException("Invalid DBKeyWords: " + token);
-        };
+        DBKeyWords keyword = KEYWORDS.lookup(token);
+        if (keyword == null) {
+            throw new ParseException("Invalid DBKeyWords: " + token);
+        }
+        return keyword;
     }
 
     public static boolean isKeyword(String token) {
-        try {
-            return parse(token) instanceof DBKeyWords;
-        } catch (ParseException e) {
-            return false;
-        }
+        return KEYWORDS.lookup(token) != null;
     }
+
     public static boolean isTargetType(DBKeyWords targetType, String value) {
-        try {
-            return parse(value).equals(targetType);
-        } catch (ParseException e) {
-            return false;
-        }
+        return KEYWORDS.lookup(value) == targetType;
     }
 }
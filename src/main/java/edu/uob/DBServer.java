@@ -3,22 +3,41 @@ package edu.uob;
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.nio.file.Files;
-import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 /** This class implements the DB server. */
 public class DBServer {
 
     private static final char END_OF_TRANSMISSION = 4;
+    private static final ServerLog LOG = ServerLog.getDefault();
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
     private String storageFolderPath;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
 
-    private Database database;
+    private final StatementCache statementCache = new StatementCache();
 
-    private String[] tokens;
+    private final Catalog catalog = new Catalog();
+
+    // Session of the commands passed to handleCommand(String), every connection getting a session of its own
+    private final Session defaultSession;
 
     public static void main(String args[]) throws IOException {
         DBServer server = new DBServer();
+        if (args.length > 0) {
+            server.setMaxConnections(Integer.parseInt(args[0]));
+        }
+        if (args.length > 2) {
+            LOG.setSampleRate(Integer.parseInt(args[2]));
+        }
+        if (args.length > 1 && args[1].equalsIgnoreCase("selector")) {
+            server.selectorListenOn(8888);
+            return;
+        }
         server.blockingListenOn(8888);
     }
 
@@ -27,32 +46,43 @@ public class DBServer {
     */
     public DBServer() {
         storageFolderPath = Paths.get("databases").toAbsolutePath().toString();
+        defaultSession = new Session(storageFolderPath, catalog);
         try {
             // Create the database storage folder if it doesn't already exist !
             Files.createDirectories(Paths.get(storageFolderPath));
+            Files.createDirectories(Paths.get(storageFolderPath, LoadCMD.IMPORT_FOLDER_NAME));
         } catch(IOException ioe) {
-            System.out.println("Can't seem to create database storage folder " + storageFolderPath);
+            LOG.error("storage_folder_failed", "path", storageFolderPath, "error", ioe.getMessage());
         }
     }
 
-    public void setDB(Database database) {
-        this.database = database;
+    /** Sets how many clients may be connected at once, later clients being turned away until one leaves. */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = Math.max(maxConnections, 1);
     }
 
-    public Database getDB() {
-        return database;
+    public int getMaxConnections() {
+        return maxConnections;
     }
 
     public String getStorageFolderPath() {
         return storageFolderPath;
     }
 
-    public String[] getTokens() {
-        return Arrays.copyOf(tokens, tokens.length);
+    public StatementCache getStatementCache() {
+        return statementCache;
     }
 
-    public void resetDB () {
-        database = null;
+    public Session openSession() {
+        return new Session(storageFolderPath, catalog);
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public Session getDefaultSession() {
+        return defaultSession;
     }
 
     /**
@@ -63,50 +93,153 @@ public class DBServer {
     */
     public String handleCommand(String command) {
         // TODO implement your server logic here
+        return handleCommand(command, defaultSession);
+    }
+
+    /**
+     * Handles a command sent over a connection, against the database and statements of that connection.
+     * Commands lock only the tables they touch, so commands on other tables and reads of the same table run in parallel.
+     */
+    public String handleCommand(String command, Session session) {
+        return executeCommand(command, session).toString();
+    }
+
+    /** Handles a command like {@link #handleCommand(String, Session)}, answering with the rows read rather than their text. */
+    public QueryResult executeCommand(String command, Session session) {
         try {
-            Tokeniser tokeniser = new Tokeniser();
-            tokens = tokeniser.getTokens(command);
-            Parser parser = new Parser(tokens);
-            DBCmd cmd = parser.parse();
-            return cmd.query(this);
+            DBCmd cmd = statementCache.getCommand(new Lexer(command).tokenise());
+            if (session.getTransaction() != null && !cmd.isTransactional()) {
+                return new QueryResult("[ERROR]: USE, CREATE, DROP and ALTER cannot run inside a transaction");
+            }
+            QueryResult result = cmd.execute(session);
+            if (cmd.isSchemaChange()) {
+                statementCache.invalidate();
+            }
+            return result;
         } catch (ParseException e) {
-            return "[ERROR]: " + e.getMessage();
+            return new QueryResult("[ERROR]: " + e.getMessage());
         } catch (Exception e) {
-            return "[ERROR]: Query Failed";
+            return new QueryResult("[ERROR]: Query Failed");
         }
     }
 
     //  === Methods below handle networking aspects of the project - you will not need to change these ! ===
 
+    /**
+     * Accepts connections until interrupted, serving each one on its own virtual thread.
+     * A blocked read then parks only its virtual thread, so an idle client costs no platform thread.
+     */
     public void blockingListenOn(int portNumber) throws IOException {
-        try (ServerSocket s = new ServerSocket(portNumber)) {
-            System.out.println("Server listening on port " + portNumber);
-            while (!Thread.interrupted()) {
-                try {
-                    blockingHandleConnection(s);
-                } catch (IOException e) {
-                    System.err.println("Server encountered a non-fatal IO error:");
-                    e.printStackTrace();
-                    System.err.println("Continuing...");
+        Semaphore connectionPermits = new Semaphore(maxConnections);
+        try (ServerSocket s = new ServerSocket(portNumber);
+             ExecutorService connectionExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            LOG.info("listening", "port", portNumber, "mode", "blocking");
+            try {
+                while (!Thread.interrupted()) {
+                    try {
+                        acceptConnection(s, connectionExecutor, connectionPermits);
+                    } catch (IOException e) {
+                        LOG.warn("accept_failed", "error", e.getMessage());
+                    }
                 }
+            } finally {
+                // Interrupting the connections' virtual threads closes their sockets, so closing the executor waits for no client
+                connectionExecutor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Accepts connections until interrupted, serving all of them from one selector thread and virtual threads running their commands,
+     * for many mostly idle clients.
+     */
+    public void selectorListenOn(int portNumber) throws IOException {
+        new SelectorServer(this).listenOn(portNumber);
+    }
+
+    private void acceptConnection(ServerSocket serverSocket, ExecutorService connectionExecutor, Semaphore connectionPermits) throws IOException {
+        Socket socket = serverSocket.accept();
+        if (!connectionPermits.tryAcquire()) {
+            rejectConnection(socket);
+            return;
+        }
+        connectionExecutor.execute(() -> {
+            try {
+                blockingHandleConnection(socket);
+            } catch (IOException e) {
+                LOG.warn("connection_failed", "error", e.getMessage());
+            } finally {
+                connectionPermits.release();
             }
+        });
+    }
+
+    private void rejectConnection(Socket socket) throws IOException {
+        try (socket;
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            writer.write("[ERROR]: Too many connections, at most " + maxConnections + " clients can be connected");
+            writer.write("\n" + END_OF_TRANSMISSION + "\n");
+            writer.flush();
         }
     }
 
-    private void blockingHandleConnection(ServerSocket serverSocket) throws IOException {
-        try (Socket s = serverSocket.accept();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream()));
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(s.getOutputStream()))) {
+    /** Serves a connection in the text protocol, or in the binary protocol when the client opens with its handshake. */
+    private void blockingHandleConnection(Socket socket) throws IOException {
+        try (Socket s = socket;
+        BufferedInputStream input = new BufferedInputStream(s.getInputStream());
+        BufferedOutputStream output = new BufferedOutputStream(s.getOutputStream())) {
+
+            LOG.info("connection_established", "address", s.getInetAddress());
+            Session session = openSession();
+            try {
+                if (BinaryProtocol.acceptHandshake(input)) {
+                    handleBinaryCommands(new DataInputStream(input), new DataOutputStream(output), session);
+                } else {
+                    handleCommands(new BufferedReader(new InputStreamReader(input)), new BufferedWriter(new OutputStreamWriter(output)), session);
+                }
+            } finally {
+                session.close();
+            }
+        }
+    }
 
-            System.out.println("Connection established: " + serverSocket.getInetAddress());
-            while (!Thread.interrupted()) {
-                String incomingCommand = reader.readLine();
-                System.out.println("Received message: " + incomingCommand);
-                String result = handleCommand(incomingCommand);
-                writer.write(result);
-                writer.write("\n" + END_OF_TRANSMISSION + "\n");
+    /**
+     * Runs the commands of a connection in the order they arrive. A client may pipeline commands without waiting
+     * for their responses, which are then flushed together once no further command has been read ahead.
+     */
+    private void handleCommands(BufferedReader reader, BufferedWriter writer, Session session) throws IOException {
+        while (!Thread.interrupted()) {
+            String incomingCommand = reader.readLine();
+            if (incomingCommand == null) { break; }
+            LOG.sample(ServerLog.Level.INFO, "command_received", "command", incomingCommand);
+            String result = handleCommand(incomingCommand, session);
+            writer.write(result);
+            writer.write("\n" + END_OF_TRANSMISSION + "\n");
+            if (!reader.ready()) {
                 writer.flush();
             }
         }
     }
+
+    /** Runs the request frames of a connection in order, answering each under its request id. */
+    private void handleBinaryCommands(DataInputStream input, DataOutputStream output, Session session) throws IOException {
+        BinaryProtocol.writeAccept(output);
+        output.flush();
+        while (!Thread.interrupted()) {
+            BinaryProtocol.Frame frame = BinaryProtocol.readFrame(input);
+            if (frame == null) { break; }
+            QueryResult result;
+            if (frame.type() == BinaryProtocol.REQUEST_FRAME) {
+                String incomingCommand = new String(frame.body(), StandardCharsets.UTF_8);
+                LOG.sample(ServerLog.Level.INFO, "command_received", "command", incomingCommand);
+                result = executeCommand(incomingCommand, session);
+            } else {
+                result = new QueryResult("[ERROR]: Expected a request frame, got frame type " + frame.type());
+            }
+            BinaryProtocol.writeResult(output, frame.requestId(), result);
+            if (input.available() == 0) {
+                output.flush();
+            }
+        }
+    }
 }
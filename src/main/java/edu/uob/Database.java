@@ -1,52 +1,50 @@
 package edu.uob;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import edu.uob.TableException.NoTableFoundException;
+import edu.uob.TableException.TableAlreadyExistException;
 
+/** Tables of one database, keyed by their lower case name so sessions can look them up and add or drop them at once. */
 public class Database {
     private final String name;
-    private List<Table> tables;
+    private final Map<String, Table> tables;
+    private volatile boolean isDropped = false;
 
     public Database(String dbName) {
         name = dbName;
-        tables = new ArrayList<>();
+        tables = new ConcurrentHashMap<>();
     }
 
-    public void addTable(Table table) {
-        tables.add(table);
+    public void addTable(Table table) throws TableAlreadyExistException {
+        if (tables.putIfAbsent(table.getName().toLowerCase(), table) != null) {
+            throw new TableAlreadyExistException(table.getName());
+        }
     }
 
     public String getDBName() {
         return name;
     }
 
+    public void markDropped() {
+        isDropped = true;
+    }
+
+    public boolean isDropped() {
+        return isDropped;
+    }
+
     public Table getTableByName(String name) throws NoTableFoundException {
-        for (Table table : tables) {
-            if(table.getName().equalsIgnoreCase(name)) {
-                return table;
-            }
-        }
-        throw new NoTableFoundException(name);
+        Table table = tables.get(name.toLowerCase());
+        if (table == null) { throw new NoTableFoundException(name); }
+        return table;
     }
 
     public boolean isTableExists(String name) {
-        for (Table table : tables) {
-            if(table.getName().equalsIgnoreCase(name)) {
-                return true;
-            }
-        }
-        return false;
+        return tables.containsKey(name.toLowerCase());
     }
 
     public void deleteTableByName(String name) throws NoTableFoundException {
-        if (!isTableExists(name))  { throw new NoTableFoundException(name); }
-        ArrayList<Table> newTableList = new ArrayList<>();
-        for (Table table : tables) {
-            if (!table.getName().equalsIgnoreCase(name)) {
-                newTableList.add(table);
-            }
-        }
-        tables = newTableList;
+        if (tables.remove(name.toLowerCase()) == null) { throw new NoTableFoundException(name); }
     }
 }
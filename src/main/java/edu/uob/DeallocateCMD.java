@@ -0,0 +1,17 @@
+package edu.uob;
+
+public class DeallocateCMD extends DBCmd {
+    protected String statementName;
+
+    public DeallocateCMD() {
+        super();
+    }
+
+    @Override
+    public String query(Session session) {
+        if (session.removePreparedStatement(statementName) == null) {
+            return "[ERROR]: No prepared statement called " + statementName;
+        }
+        return "[OK]";
+    }
+}
@@ -0,0 +1,47 @@
+package edu.uob;
+
+import java.io.IOException;
+import java.util.List;
+import edu.uob.InterpretException.StringWithNoQuoteException;
+import edu.uob.TableException.NoColumnFoundException;
+import edu.uob.TableException.NoTableFoundException;
+import edu.uob.TableException.NotGroupedColumnException;
+import edu.uob.TableException.UsingReservedWordException;
+
+/** Declares a cursor over the rows of a SELECT, which FETCH then reads a batch at a time. */
+public class DeclareCMD extends DBCmd {
+    protected String cursorName;
+    protected SelectCMD select;
+
+    public DeclareCMD() {
+        super();
+    }
+
+    @Override
+    protected DBCmd bind(List<Token> parameters) throws ParseException {
+        checkParameterAmount(parameters);
+        if (parameterAmount == 0) { return this; }
+        DeclareCMD declareCmd = new DeclareCMD();
+        declareCmd.cursorName = cursorName;
+        declareCmd.select = (SelectCMD) select.bind(parameters);
+        return declareCmd;
+    }
+
+    @Override
+    public String query(Session session) {
+        if (session.getCursor(cursorName) != null) {
+            return "[ERROR]: Cursor " + cursorName + " is already declared";
+        }
+        try {
+            session.putCursor(cursorName, select.openCursor(session));
+            return "[OK]";
+        } catch (NoTableFoundException | NoColumnFoundException | NotGroupedColumnException |
+                 StringWithNoQuoteException | UsingReservedWordException e) {
+            return "[ERROR]: Failed getting data from table--" + e.getMessage();
+        } catch (IOException e) {
+            return "[ERROR]: Failed sorting data--" + e.getMessage();
+        } catch (Exception e) {
+            return "[ERROR]: Failed getting data";
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package edu.uob;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import edu.uob.InterpretException.StringWithNoQuoteException;
 import edu.uob.InterpretException.FailedCreatingFileException;
@@ -10,21 +9,28 @@ import edu.uob.InterpretException.FailedCreatingFileException;
 public class DeleteCMD extends DBCmd {
     public DeleteCMD() {
         super();
-        tableNames = new ArrayList<>();
-        currentIdx = 2;
     }
 
     @Override
-    public String query(DBServer server) {
+    protected DBCmd bind(List<Token> parameters) throws ParseException {
+        checkParameterAmount(parameters);
+        if (parameterAmount == 0) { return this; }
+        DeleteCMD deleteCmd = new DeleteCMD();
+        deleteCmd.tableNames = tableNames;
+        deleteCmd.condition = condition.bind(parameters);
+        return deleteCmd;
+    }
+
+    @Override
+    public String query(Session session) {
         try {
-            queryTableName(server);
-            Table table = server.getDB().getTableByName(tableNames.get(0));
-            colNames = new ArrayList<>(Arrays.asList(table.getColumnNames()));
-            currentIdx++;
-            List<List<String>> updatedDataValues = queryCondition(server, currentIdx, table);
-            table.updateDataValues(updatedDataValues);
-            saveTable(server);
-            return "[OK]";
+            checkTableNames();
+            Table table = session.getDB().getTableByName(tableNames.get(0));
+            return writeTable(session, table, () -> {
+                table.deleteRows(queryCondition(table));
+                saveTable(session);
+                return "[OK]";
+            });
         } catch (TableException | StringWithNoQuoteException | IOException |
                  FailedCreatingFileException e) {
             return "[ERROR]: Failed deleting table--" + e.getMessage();
@@ -33,15 +39,14 @@ public class DeleteCMD extends DBCmd {
         }
     }
 
-    private List<List<String>> queryCondition(DBServer server, int index, Table table) throws StringWithNoQuoteException {
-        String[] titles = table.getTitles();
-        String[][] dataValues = table.getDataValues();
-        Condition condition = Parser.parseCondition(server, index);
-        List<List<String>> newDataValues = new ArrayList<>();
-        for (String[] dataValue : dataValues) {
-            if (isMatchConditions(condition, titles, dataValue)) { continue; }
-            newDataValues.add(new ArrayList<>(Arrays.asList(dataValue)));
+    private BitSet queryCondition(Table table) throws StringWithNoQuoteException {
+        BitSet matchedRows = new BitSet();
+        RowCursor cursor = table.openCursor();
+        while (cursor.next()) {
+            if (isMatchConditions(condition, cursor)) {
+                matchedRows.set(cursor.getRowIndex());
+            }
         }
-        return newDataValues;
+        return matchedRows;
     }
 }
@@ -1,7 +1,6 @@
 package edu.uob;
 
 import java.io.File;
-import java.util.ArrayList;
 import edu.uob.TableException.NoTableFoundException;
 import edu.uob.TableException.UsingReservedWordException;
 import edu.uob.DatabaseException.DatabaseNotFoundException;
@@ -12,35 +11,45 @@ import edu.uob.TableException.FailedDeletingTableException;
 public class DropCMD extends DBCmd {
     public DropCMD() {
         super();
-        tableNames = new ArrayList<>();
-        currentIdx = 1;
     }
 
     @Override
-    public String query(DBServer server) {
+    protected boolean isSchemaChange() {
+        return true;
+    }
+
+    @Override
+    public String query(Session session) {
         try {
-            if (DBKeyWords.isTargetType(DBKeyWords.TABLE, server.getTokens()[currentIdx])) {
-                currentIdx++;
-                queryTableName(server);
-                return dropTable(server);
+            if (dbName == null) {
+                checkTableNames();
+                return dropTable(session);
             }
-            currentIdx++;
-            dbName = server.getTokens()[currentIdx];
             if (DBKeyWords.isKeyword(dbName)) {
                 throw new UsingReservedWordException(dbName);
             }
-            return dropDatabase(server);
+            return dropDatabase(session);
         } catch (UsingReservedWordException | FailedDeletingTableException | NoTableFoundException |
                  DatabaseNotFoundException | FailedDeletingDatabaseException e) {
             return "[ERROR]: " + e.getMessage();
         }
     }
 
-    private String dropTable(DBServer server) throws FailedDeletingTableException, NoTableFoundException {
+    private String dropTable(Session session) throws FailedDeletingTableException, NoTableFoundException {
+        try {
+            Table table = session.getDB().getTableByName(tableNames.get(0));
+            // Commands already holding the table finish before its files go
+            return writeTable(session, table, () -> deleteTable(session));
+        } catch (Exception e) {
+            throw new FailedDeletingTableException(tableNames.get(0));
+        }
+    }
+
+    private String deleteTable(Session session) throws FailedDeletingTableException {
         try {
-            dbName = server.getDB().getDBName();
-            server.getDB().deleteTableByName(tableNames.get(0));
-            String tablePath = server.getStorageFolderPath() + File.separator + dbName + File.separator + tableNames.get(0) + ".tab";
+            String dbName = session.getDB().getDBName();
+            session.getDB().deleteTableByName(tableNames.get(0));
+            String tablePath = session.getStorageFolderPath() + File.separator + dbName + File.separator + tableNames.get(0) + ".tab";
             File file = new File(tablePath);
             if (!file.exists()) {
                 throw new NoTableFoundException(tableNames.get(0));
@@ -48,17 +57,17 @@ public class DropCMD extends DBCmd {
             if (!file.delete()) {
                 throw new FailedDeletingTableException(tableNames.get(0));
             }
-            deleteConfigFile(server, tableNames.get(0));
+            deleteConfigFile(session, tableNames.get(0));
         } catch (Exception e) {
             throw new FailedDeletingTableException(tableNames.get(0));
         }
         return "[OK]";
     }
 
-    private void deleteConfigFile(DBServer server, String tableName) throws FailedDeletingTableException {
+    private void deleteConfigFile(Session session, String tableName) throws FailedDeletingTableException {
         try {
-            dbName = server.getDB().getDBName();
-            String path = server.getStorageFolderPath() + File.separator + dbName + File.separator + tableName + "_config.tab";
+            String dbName = session.getDB().getDBName();
+            String path = session.getStorageFolderPath() + File.separator + dbName + File.separator + tableName + "_config.tab";
             File configFile = new File(path);
             if (!configFile.delete()) {
                 throw new FailedDeletingTableException(tableNames.get(0));
@@ -67,8 +76,8 @@ public class DropCMD extends DBCmd {
             throw new FailedDeletingTableException(tableName);
         }
     }
-    private String dropDatabase(DBServer server) throws FailedDeletingDatabaseException, DatabaseNotFoundException, FailedDeletingTableException, UsingReservedWordException {
-        String tablePath = server.getStorageFolderPath() + File.separator + dbName;
+    private String dropDatabase(Session session) throws FailedDeletingDatabaseException, DatabaseNotFoundException, FailedDeletingTableException, UsingReservedWordException {
+        String tablePath = session.getStorageFolderPath() + File.separator + dbName;
         File directory = new File(tablePath);
         if (!directory.exists() || !directory.isDirectory()) {
             throw new DatabaseNotFoundException(dbName);
@@ -81,7 +90,7 @@ public class DropCMD extends DBCmd {
         } catch (Exception e) {
             throw new FailedDeletingDatabaseException(dbName);
         }
-        resetCurrentDatabase(server, dbName);
+        session.getCatalog().drop(dbName);
         return "[OK]";
     }
 
@@ -97,10 +106,4 @@ public class DropCMD extends DBCmd {
             }
         }
     }
-
-    private void resetCurrentDatabase(DBServer server, String dbName) {
-        if (dbName.equalsIgnoreCase(server.getDB().getDBName())) {
-            server.resetDB();
-        }
-    }
 }
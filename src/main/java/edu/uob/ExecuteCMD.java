@@ -0,0 +1,32 @@
+package edu.uob;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Runs a prepared statement with its placeholders bound to the given literals, without parsing it again. */
+public class ExecuteCMD extends DBCmd {
+    protected String statementName;
+    protected List<Token> parameters = new ArrayList<>();
+
+    public ExecuteCMD() {
+        super();
+    }
+
+    @Override
+    public String query(Session session) {
+        return execute(session).toString();
+    }
+
+    @Override
+    protected QueryResult execute(Session session) {
+        DBCmd statement = session.getPreparedStatement(statementName);
+        if (statement == null) {
+            return new QueryResult("[ERROR]: No prepared statement called " + statementName);
+        }
+        try {
+            return statement.bind(parameters).execute(session);
+        } catch (ParseException e) {
+            return new QueryResult("[ERROR]: " + e.getMessage());
+        }
+    }
+}
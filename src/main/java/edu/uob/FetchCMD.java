@@ -0,0 +1,42 @@
+package edu.uob;
+
+import java.util.List;
+import edu.uob.InterpretException.StringWithNoQuoteException;
+
+public class FetchCMD extends DBCmd {
+    protected String cursorName;
+    protected int rowAmount;
+    protected int rowAmountParameter = -1;
+
+    public FetchCMD() {
+        super();
+    }
+
+    @Override
+    protected DBCmd bind(List<Token> parameters) throws ParseException {
+        checkParameterAmount(parameters);
+        if (parameterAmount == 0) { return this; }
+        FetchCMD fetchCmd = new FetchCMD();
+        fetchCmd.cursorName = cursorName;
+        fetchCmd.rowAmount = bindRowAmount(parameters.get(rowAmountParameter));
+        return fetchCmd;
+    }
+
+    @Override
+    public String query(Session session) {
+        return execute(session).toString();
+    }
+
+    @Override
+    protected QueryResult execute(Session session) {
+        ResultCursor cursor = session.getCursor(cursorName);
+        if (cursor == null) {
+            return new QueryResult("[ERROR]: No cursor called " + cursorName);
+        }
+        try {
+            return cursor.fetch(rowAmount);
+        } catch (StringWithNoQuoteException e) {
+            return new QueryResult("[ERROR]: Failed getting data from table--" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package edu.uob;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Groups rows by the value of one column and folds every group into aggregate values.
+ * Large inputs are split into partitions which are aggregated in parallel and merged at the end.
+ */
+public class HashAggregator {
+    public static final int PARALLEL_THRESHOLD = 10000;
+
+    private final int groupIndex;
+    private final List<AggregateFunction> functions;
+    private final int[] columnIndexes;
+
+    /**
+     * @param groupIndex column to group by, or -1 to fold all rows into a single group
+     * @param functions aggregate of each output column, or null for the group column itself
+     * @param columnIndexes column read by each aggregate, or -1 for COUNT(*)
+     */
+    public HashAggregator(int groupIndex, List<AggregateFunction> functions, int[] columnIndexes) {
+        this.groupIndex = groupIndex;
+        this.functions = functions;
+        this.columnIndexes = columnIndexes;
+    }
+
+    public List<String[]> aggregate(List<String[]> rows) {
+        Map<String, Accumulator[]> groups;
+        if (rows.size() < PARALLEL_THRESHOLD) {
+            groups = aggregatePartition(rows);
+        } else {
+            int partitionAmount = Runtime.getRuntime().availableProcessors();
+            int partitionSize = (rows.size() + partitionAmount - 1) / partitionAmount;
+            List<Map<String, Accumulator[]>> partialGroups = IntStream.range(0, partitionAmount).parallel()
+                    .mapToObj(i -> {
+                        int from = Math.min(rows.size(), i * partitionSize);
+                        int to = Math.min(rows.size(), from + partitionSize);
+                        return aggregatePartition(rows.subList(from, to));
+                    })
+                    .collect(Collectors.toList());
+            groups = partialGroups.get(0);
+            for (int i = 1; i < partialGroups.size(); i++) {
+                mergeGroups(groups, partialGroups.get(i));
+            }
+        }
+        if (groups.isEmpty() && groupIndex < 0) {
+            // Aggregating nothing still yields one row, e.g. COUNT(*) is 0 on an empty table
+            groups.put("", createAccumulators());
+        }
+        List<String[]> results = new ArrayList<>();
+        for (Map.Entry<String, Accumulator[]> group : groups.entrySet()) {
+            String[] result = new String[functions.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = functions.get(i) == null ? group.getKey() : group.getValue()[i].getResult();
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private Map<String, Accumulator[]> aggregatePartition(List<String[]> rows) {
+        Map<String, Accumulator[]> groups = new LinkedHashMap<>();
+        for (String[] row : rows) {
+            String groupKey = groupIndex < 0 ? "" : row[groupIndex];
+            Accumulator[] accumulators = groups.computeIfAbsent(groupKey, key -> createAccumulators());
+            for (int i = 0; i < accumulators.length; i++) {
+                if (accumulators[i] == null) { continue; }
+                accumulators[i].add(columnIndexes[i] < 0 ? null : row[columnIndexes[i]]);
+            }
+        }
+        return groups;
+    }
+
+    private void mergeGroups(Map<String, Accumulator[]> groups, Map<String, Accumulator[]> otherGroups) {
+        for (Map.Entry<String, Accumulator[]> otherGroup : otherGroups.entrySet()) {
+            Accumulator[] accumulators = groups.get(otherGroup.getKey());
+            if (accumulators == null) {
+                groups.put(otherGroup.getKey(), otherGroup.getValue());
+                continue;
+            }
+            for (int i = 0; i < accumulators.length; i++) {
+                if (accumulators[i] == null) { continue; }
+                accumulators[i].merge(otherGroup.getValue()[i]);
+            }
+        }
+    }
+
+    private Accumulator[] createAccumulators() {
+        Accumulator[] accumulators = new Accumulator[functions.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            if (functions.get(i) != null) {
+                accumulators[i] = new Accumulator(functions.get(i));
+            }
+        }
+        return accumulators;
+    }
+
+    public static String formatNumber(double number, boolean isFloat) {
+        if (!isFloat && number == Math.rint(number) && Math.abs(number) < 1e15) {
+            return Long.toString((long) number);
+        }
+        return Double.toString(number);
+    }
+
+    private static class Accumulator {
+        private final AggregateFunction function;
+        private long count = 0;
+        private long numberCount = 0;
+        private double sum = 0;
+        private boolean isFloat = false;
+        private String extreme;
+        private ValueType extremeType;
+
+        private Accumulator(AggregateFunction function) {
+            this.function = function;
+        }
+
+        private void add(String value) {
+            // COUNT(*) counts rows, every other aggregate skips NULL values
+            if (value == null) {
+                count++;
+                return;
+            }
+            ValueType type = ValueType.parseType(value);
+            if (type == ValueType.NULL) { return; }
+            count++;
+            switch (function) {
+                case SUM, AVG -> {
+                    if (type != ValueType.INTEGER && type != ValueType.FLOAT) { return; }
+                    sum += Double.parseDouble(value);
+                    numberCount++;
+                    isFloat = isFloat || type == ValueType.FLOAT;
+                }
+                case MIN, MAX -> {
+                    int order = extreme == null ? 0 : ValueType.compareValues(value, type, extreme, extremeType);
+                    if (extreme == null || (function == AggregateFunction.MIN ? order < 0 : order > 0)) {
+                        extreme = value;
+                        extremeType = type;
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        private void merge(Accumulator other) {
+            count += other.count;
+            numberCount += other.numberCount;
+            sum += other.sum;
+            isFloat = isFloat || other.isFloat;
+            if (other.extreme == null) { return; }
+            int order = extreme == null ? 0 : ValueType.compareValues(other.extreme, other.extremeType, extreme, extremeType);
+            if (extreme == null || (function == AggregateFunction.MIN && order < 0) || (function == AggregateFunction.MAX && order > 0)) {
+                extreme = other.extreme;
+                extremeType = other.extremeType;
+            }
+        }
+
+        private String getResult() {
+            return switch (function) {
+                case COUNT -> Long.toString(count);
+                case SUM -> numberCount == 0 ? "NULL" : formatNumber(sum, isFloat);
+                case AVG -> numberCount == 0 ? "NULL" : formatNumber(sum / numberCount, true);
+                case MIN, MAX -> extreme == null ? "NULL" : extreme;
+            };
+        }
+    }
+}
@@ -3,7 +3,6 @@ package edu.uob;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import edu.uob.InterpretException.StringWithNoQuoteException;
 import edu.uob.InterpretException.FailedCreatingFileException;
 import edu.uob.TableException.NoTableFoundException;
 import edu.uob.TableException.InsertInsufficientValuesException;
@@ -11,43 +10,52 @@ import edu.uob.TableException.UsingReservedWordException;
 import edu.uob.TableException.InsertTooManyValuesException;
 
 public class InsertCMD extends DBCmd {
-    private final List<String> values = new ArrayList<>();
+    protected final List<List<String>> rows = new ArrayList<>();
+    protected final List<List<Integer>> parameterIndexes = new ArrayList<>();
     public InsertCMD() {
         super();
-        tableNames = new ArrayList<>();
-        colNames = new ArrayList<>();
-        currentIdx = 2;
     }
 
     @Override
-    public String query(DBServer server) {
+    protected DBCmd bind(List<Token> parameters) throws ParseException {
+        checkParameterAmount(parameters);
+        if (parameterAmount == 0) { return this; }
+        InsertCMD insertCmd = new InsertCMD();
+        insertCmd.tableNames = tableNames;
+        for (int i = 0; i < rows.size(); i++) {
+            List<String> values = rows.get(i);
+            List<String> boundValues = new ArrayList<>(values.size());
+            List<Integer> boundIndexes = new ArrayList<>(values.size());
+            for (int j = 0; j < values.size(); j++) {
+                int parameterIndex = parameterIndexes.get(i).get(j);
+                boundValues.add(parameterIndex < 0 ? values.get(j) : bindValue(parameters.get(parameterIndex)));
+                boundIndexes.add(-1);
+            }
+            insertCmd.rows.add(boundValues);
+            insertCmd.parameterIndexes.add(boundIndexes);
+        }
+        return insertCmd;
+    }
+
+    @Override
+    public String query(Session session) {
         try {
-            queryTableName(server);
-            currentIdx += 2;
-            queryValueList(server);
-            Table table = server.getDB().getTableByName(tableNames.get(0));
-            table.addRowWithoutID(values);
-            saveTable(server);
-            return "[OK]";
-        } catch (StringWithNoQuoteException | NoTableFoundException | InsertInsufficientValuesException |
+            checkTableNames();
+            Table table = session.getDB().getTableByName(tableNames.get(0));
+            List<List<String>> newRows = new ArrayList<>(rows.size());
+            for (List<String> values : rows) {
+                newRows.add(new ArrayList<>(values));
+            }
+            return writeTable(session, table, () -> {
+                table.addRowsWithoutID(newRows);
+                saveTable(session);
+                return "[OK]";
+            });
+        } catch (NoTableFoundException | InsertInsufficientValuesException |
                  InsertTooManyValuesException | FailedCreatingFileException | IOException | UsingReservedWordException e) {
             return "[ERROR]: Failed inserting to table--" + e.getMessage();
         } catch (Exception e) {
             return "[ERROR]: Failed inserting to table";
         }
     }
-
-    private void queryValueList(DBServer server) throws InterpretException.StringWithNoQuoteException {
-        String value = server.getTokens()[currentIdx];
-        ValueType valueType = ValueType.parseType(value);
-        if (valueType == ValueType.STRING) {
-            values.add(ValueType.retrieveStringFromQuote(value));
-        } else {
-            values.add(value);
-        }
-        currentIdx++;
-        if (!server.getTokens()[currentIdx].equals(",")) { return; }
-        currentIdx++;
-        queryValueList(server);
-    }
 }
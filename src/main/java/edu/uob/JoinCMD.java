@@ -1,7 +1,6 @@
 package edu.uob;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -13,31 +12,27 @@ import edu.uob.TableException.NoColumnFoundException;
 public class JoinCMD extends DBCmd {
     public JoinCMD() {
         super();
-        tableNames = new ArrayList<>();
-        colNames = new ArrayList<>();
-        currentIdx = 1;
     }
 
     @Override
-    public String query(DBServer server) {
+    public String query(Session session) {
+        return execute(session).toString();
+    }
+
+    @Override
+    protected QueryResult execute(Session session) {
         try {
-            queryTableName(server);
-            currentIdx++;
-            queryTableName(server);
-            currentIdx++;
-            queryAttributeName(server);
-            currentIdx++;
-            queryAttributeName(server);
-            orderColNames();
-            return "[OK] \n" + createJoinTable(server);
+            checkTableNames();
+            return createJoinTable(session, orderColNames());
         } catch (NoColumnFoundException | NoTableFoundException | UsingReservedWordException e) {
-            return "[ERROR]: Failed joining tables--" + e.getMessage();
+            return new QueryResult("[ERROR]: Failed joining tables--" + e.getMessage());
         } catch (Exception e) {
-            return "[ERROR]: Failed joining tables";
+            return new QueryResult("[ERROR]: Failed joining tables");
         }
     }
 
-    private void orderColNames() {
+    /** Returns the joined column of each table, in the order of the tables. */
+    private List<String> orderColNames() {
         String patternString = "\\.";
         Pattern pattern = Pattern.compile(patternString);
         HashMap<String, String> tablesColMap = new HashMap<>();
@@ -55,44 +50,47 @@ public class JoinCMD extends DBCmd {
             String tableName = texts[0];
             tablesColMap.put(tableName, texts[1]);
         }
-        int iteration = 0;
+        List<String> joinColumns = new ArrayList<>();
         for (String name : tableNames) {
             if (tablesColMap.get(name) != null) {
-                colNames.set(iteration, tablesColMap.get(name));
-                iteration++;
+                joinColumns.add(tablesColMap.get(name));
                 continue;
             }
-            colNames.set(iteration, colsLeft.get(0));
+            joinColumns.add(colsLeft.get(0));
             colsLeft.remove(0);
-            iteration++;
         }
+        return joinColumns;
+    }
+
+    private QueryResult createJoinTable(Session session, List<String> joinColumns) throws Exception {
+        Table firstTable = session.getDB().getTableByName(tableNames.get(0));
+        Table secondTable = session.getDB().getTableByName(tableNames.get(1));
+        return readTables(session, List.of(firstTable, secondTable), snapshots -> joinTables(snapshots.get(0), snapshots.get(1), joinColumns));
     }
 
-    private String createJoinTable(DBServer server) throws NoColumnFoundException, NoTableFoundException, UsingReservedWordException {
-        Table firstTable = server.getDB().getTableByName(tableNames.get(0));
-        Table secondTable = server.getDB().getTableByName(tableNames.get(1));
-        boolean isFirstColExist = firstTable.isColumnExist(colNames.get(0));
-        boolean isSecondColExist = secondTable.isColumnExist(colNames.get(1));
+    private QueryResult joinTables(TableSnapshot firstTable, TableSnapshot secondTable, List<String> joinColumns) throws NoColumnFoundException, UsingReservedWordException {
+        boolean isFirstColExist = firstTable.isColumnExist(joinColumns.get(0));
+        boolean isSecondColExist = secondTable.isColumnExist(joinColumns.get(1));
         if (!isFirstColExist) {
-            throw new NoColumnFoundException(colNames.get(0));
+            throw new NoColumnFoundException(joinColumns.get(0));
         }
         if (!isSecondColExist) {
-            throw new NoColumnFoundException(colNames.get(1));
+            throw new NoColumnFoundException(joinColumns.get(1));
         }
-        List<String> joinedTitles = joinTitles(firstTable, secondTable);
-        List<List<String>> joinedDataValues = joinDataValues(firstTable, secondTable);
-        return Table.tableToString(joinedTitles, joinedDataValues);
+        List<String> joinedTitles = joinTitles(firstTable, secondTable, joinColumns);
+        List<List<String>> joinedDataValues = joinDataValues(firstTable, secondTable, joinColumns);
+        return new QueryResult("[OK] ", joinedTitles, joinedDataValues);
     }
 
-    private List<String> joinTitles(Table firstTable, Table secondTable) {
+    private List<String> joinTitles(TableSnapshot firstTable, TableSnapshot secondTable, List<String> joinColumns) {
         ArrayList<String> titles = new ArrayList<>();
         titles.add(firstTable.getPk());
-        titles.addAll(getJoinedTitles(firstTable, colNames.get(0)));
-        titles.addAll(getJoinedTitles(secondTable, colNames.get(1)));
+        titles.addAll(getJoinedTitles(firstTable, joinColumns.get(0)));
+        titles.addAll(getJoinedTitles(secondTable, joinColumns.get(1)));
         return titles;
     }
 
-    private List<String> getJoinedTitles(Table table, String column) {
+    private List<String> getJoinedTitles(TableSnapshot table, String column) {
         ArrayList<String> titles = new ArrayList<>();
         for (String title : table.getTitles()) {
             if (!title.equalsIgnoreCase(column) && !title.equalsIgnoreCase(table.getPk())) {
@@ -103,20 +101,26 @@ public class JoinCMD extends DBCmd {
     }
 
 
-    private List<List<String>> joinDataValues(Table firstTable, Table secondTable) {
+    private List<List<String>> joinDataValues(TableSnapshot firstTable, TableSnapshot secondTable, List<String> joinColumns) {
         List<List<String>> dataValues = new ArrayList<>();
-        String firstTitle = colNames.get(0);
+        String firstTitle = joinColumns.get(0);
         int firstTitleIndex = firstTable.getTitleIndexByName(firstTitle);
-        String[][] firstTableData = firstTable.getDataValues();
-        String secondTitle = colNames.get(1);
+        int firstColumnAmount = firstTable.getTitles().length;
+        RowCursor firstCursor = firstTable.openCursor();
+        String secondTitle = joinColumns.get(1);
         int secondTitleIndex = secondTable.getTitleIndexByName(secondTitle);
-        String[][] secondTableData = secondTable.getDataValues();
+        int secondColumnAmount = secondTable.getTitles().length;
+        RowCursor secondCursor = secondTable.openCursor();
 
         int newId = 1;
-        for (String[] firstTableRow : firstTableData) {
-            for (String[] secondTableRow : secondTableData) {
-                List<String> joinedRow = joinRow(firstTableRow, firstTitleIndex, secondTableRow, secondTitleIndex, newId);
-                if (joinedRow.isEmpty()) { continue; }
+        while (firstCursor.next()) {
+            secondCursor.reset();
+            while (secondCursor.next()) {
+                if (!firstCursor.getValue(firstTitleIndex).equals(secondCursor.getValue(secondTitleIndex))) { continue; }
+                List<String> joinedRow = new ArrayList<>();
+                joinedRow.add(Integer.toString(newId));
+                addValuesFromTable(joinedRow, firstCursor, firstColumnAmount, firstTitleIndex);
+                addValuesFromTable(joinedRow, secondCursor, secondColumnAmount, secondTitleIndex);
                 newId++;
                 dataValues.add(joinedRow);
             }
@@ -124,31 +128,10 @@ public class JoinCMD extends DBCmd {
         return dataValues;
     }
 
-    private List<String> joinRow(String[] tableOneRow, int firstIdx, String[] tableTwoRow, int secondIdx, int newId) {
-        String firstTableValue = tableOneRow[firstIdx];
-        String secondTableValue = tableTwoRow[secondIdx];
-        ArrayList<String> row = new ArrayList<>();
-        if (!firstTableValue.equals(secondTableValue)) { return row; }
-        row.add(Integer.toString(newId));
-        row.addAll(getValuesFromTable(tableOneRow, firstIdx));
-        row.addAll(getValuesFromTable(tableTwoRow, secondIdx));
-        return row;
-    }
-
-    private ArrayList<String> getValuesFromTable(String[] tableRow, int joinedIdx) {
-        ArrayList<String> row = new ArrayList<>();
-        if (joinedIdx > 0) {
-            row.addAll(Arrays.asList(Arrays.copyOfRange(tableRow, 1, joinedIdx)));
-        }
-        if (joinedIdx + 1 < tableRow.length) {
-            row.addAll(Arrays.asList(Arrays.copyOfRange(tableRow, joinedIdx + 1, tableRow.length)));
+    /** Appends every value of the current row except its id and the joined column. */
+    private void addValuesFromTable(List<String> joinedRow, RowCursor cursor, int columnAmount, int joinedIdx) {
+        for (int i = 1; i < columnAmount; i++) {
+            if (i != joinedIdx) { joinedRow.add(cursor.getValue(i)); }
         }
-        return row;
-    }
-
-    private void queryAttributeName(DBServer server) {
-        String token = server.getTokens()[currentIdx];
-        colNames.add(token);
-        currentIdx++;
     }
 }
@@ -0,0 +1,69 @@
+package edu.uob;
+
+import java.util.Arrays;
+
+/**
+ * Case-insensitive lookup of enum constants by name through a perfect hash table.
+ * A seed giving every keyword its own slot is searched for once, when the table is built,
+ * so a lookup hashes the word, reads one slot and compares one candidate without allocating.
+ */
+public class KeywordTable<E extends Enum<E>> {
+    private static final int SEEDS_PER_SIZE = 1024;
+
+    private final E[] slots;
+    private final int mask;
+    private final int seed;
+    private final int maxLength;
+
+    public KeywordTable(E[] keywords) {
+        int size = Integer.highestOneBit(Math.max(keywords.length, 1)) << 1;
+        int seed = 0;
+        E[] slots;
+        while ((slots = fillSlots(keywords, size, seed)) == null) {
+            seed++;
+            if (seed == SEEDS_PER_SIZE) {
+                seed = 0;
+                size <<= 1;
+            }
+        }
+        int maxLength = 0;
+        for (E keyword : keywords) {
+            maxLength = Math.max(maxLength, keyword.name().length());
+        }
+        this.slots = slots;
+        this.mask = size - 1;
+        this.seed = seed;
+        this.maxLength = maxLength;
+    }
+
+    /** Returns the keyword named by the word in any letter case, or null when there is none. */
+    public E lookup(String word) {
+        if (word == null || word.length() > maxLength) { return null; }
+        E candidate = slots[hash(word, seed) & mask];
+        return candidate != null && candidate.name().equalsIgnoreCase(word) ? candidate : null;
+    }
+
+    private static <E extends Enum<E>> E[] fillSlots(E[] keywords, int size, int seed) {
+        E[] slots = Arrays.copyOf(keywords, size);
+        Arrays.fill(slots, null);
+        for (E keyword : keywords) {
+            int slot = hash(keyword.name(), seed) & (size - 1);
+            if (slots[slot] != null) { return null; }
+            slots[slot] = keyword;
+        }
+        return slots;
+    }
+
+    /** Hashes the word as if it were upper case, so every letter case of a keyword lands on its slot. */
+    private static int hash(String word, int seed) {
+        int hash = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+        for (int i = 0; i < word.length(); i++) {
+            char character = word.charAt(i);
+            if (character >= 'a' && character <= 'z') {
+                character -= 'a' - 'A';
+            }
+            hash = (hash ^ character) * 0x01000193;
+        }
+        return hash ^ (hash >>> 15);
+    }
+}
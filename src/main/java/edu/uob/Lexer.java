@@ -0,0 +1,120 @@
+package edu.uob;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a query into typed tokens in a single pass over its characters, which the parser takes as they are.
+ * String literals keep their quotes and are checked to hold only characters allowed in them, brackets, commas and semicolons are symbols on their own,
+ * comparators are operators even when they are not surrounded by spaces, and a question mark
+ * stands on its own as a parameter placeholder.
+ */
+public class Lexer {
+    private final String query;
+    private int position;
+
+    public Lexer(String query) {
+        this.query = query;
+        this.position = 0;
+    }
+
+    public List<Token> tokenise() throws ParseException {
+        List<Token> tokens = new ArrayList<>();
+        while (position < query.length()) {
+            char character = query.charAt(position);
+            if (Character.isWhitespace(character)) {
+                position++;
+            } else if (character == '\'') {
+                tokens.add(lexString());
+            } else if (isSymbol(character)) {
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(character), position));
+                position++;
+            } else if (character == '?') {
+                tokens.add(new Token(TokenType.PARAMETER, "?", position));
+                position++;
+            } else if (isOperatorStart(position)) {
+                tokens.add(lexOperator());
+            } else {
+                tokens.add(lexWord());
+            }
+        }
+        return tokens;
+    }
+
+    /** Returns the literal a text such as a field read from a file consists of, or null when it is not one literal. */
+    public static Token readLiteral(String text) {
+        try {
+            List<Token> tokens = new Lexer(text).tokenise();
+            return tokens.size() == 1 && tokens.get(0).getType().isLiteral() ? tokens.get(0) : null;
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private Token lexString() throws ParseException {
+        int start = position;
+        int end = query.indexOf('\'', start + 1);
+        if (end < 0) {
+            throw new ParseException("Unterminated string literal at position " + start);
+        }
+        for (int i = start + 1; i < end; i++) {
+            if (!CharClass.isCharLiteral(query.charAt(i))) {
+                throw new ParseException("Invalid character in string literal at position " + i);
+            }
+        }
+        position = end + 1;
+        return new Token(TokenType.STRING_LITERAL, query.substring(start, position), start);
+    }
+
+    private Token lexOperator() {
+        int start = position;
+        // Every comparator is either a single character or a character followed by '='
+        boolean isTwoCharacters = position + 1 < query.length() && query.charAt(position + 1) == '=';
+        position += isTwoCharacters ? 2 : 1;
+        return new Token(TokenType.OPERATOR, query.substring(start, position), start);
+    }
+
+    private Token lexWord() {
+        int start = position;
+        while (position < query.length()) {
+            char character = query.charAt(position);
+            boolean isBoundary = Character.isWhitespace(character) || character == '\'' || character == '?' || isSymbol(character);
+            if (isBoundary || isOperatorStart(position)) { break; }
+            position++;
+        }
+        String text = query.substring(start, position);
+        return new Token(classifyWord(text), text, start);
+    }
+
+    private boolean isOperatorStart(int index) {
+        char character = query.charAt(index);
+        if (character == '=' || character == '<' || character == '>') { return true; }
+        return character == '!' && index + 1 < query.length() && query.charAt(index + 1) == '=';
+    }
+
+    private static boolean isSymbol(char character) {
+        return character == '(' || character == ')' || character == ',' || character == ';';
+    }
+
+    private static TokenType classifyWord(String text) {
+        TokenType numberType = classifyNumber(text);
+        if (numberType != null) { return numberType; }
+        if (text.equalsIgnoreCase("TRUE") || text.equalsIgnoreCase("FALSE")) { return TokenType.BOOLEAN_LITERAL; }
+        if (text.equalsIgnoreCase("NULL")) { return TokenType.NULL_LITERAL; }
+        if (DBKeyWords.isKeyword(text) || CmdType.isCmdType(text)) { return TokenType.KEYWORD; }
+        return TokenType.IDENTIFIER;
+    }
+
+    /** Returns the literal kind of a signed integer or float, or null when the word is not a number. */
+    protected static TokenType classifyNumber(String text) {
+        int index = text.startsWith("+") || text.startsWith("-") ? 1 : 0;
+        int integerStart = index;
+        while (index < text.length() && CharClass.isDigit(text.charAt(index))) { index++; }
+        if (index == integerStart) { return null; }
+        if (index == text.length()) { return TokenType.INTEGER_LITERAL; }
+        if (text.charAt(index) != '.') { return null; }
+        int fractionStart = ++index;
+        while (index < text.length() && CharClass.isDigit(text.charAt(index))) { index++; }
+        return index > fractionStart && index == text.length() ? TokenType.FLOAT_LITERAL : null;
+    }
+}
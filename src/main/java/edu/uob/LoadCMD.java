@@ -0,0 +1,153 @@
+package edu.uob;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import edu.uob.InterpretException.FailedCreatingFileException;
+import edu.uob.InterpretException.FailedReadingFileException;
+import edu.uob.TableException.InsertInsufficientValuesException;
+import edu.uob.TableException.InsertTooManyValuesException;
+
+/**
+ * Appends the rows of a CSV or TSV file to a table, writing the table to disk once at the end.
+ * Files are only read from the import folder of the storage folder, so clients cannot read other files of the server.
+ * The first line of the file names the columns its values belong to; an id column is skipped, as ids are
+ * handed out by the table, and table columns missing from the file are filled with NULL.
+ */
+public class LoadCMD extends DBCmd {
+    // Not a valid database name, so no database can be created over it or dropped with it
+    public static final String IMPORT_FOLDER_NAME = "import-files";
+
+    protected String filePath;
+    protected int filePathParameter = -1;
+
+    public LoadCMD() {
+        super();
+    }
+
+    @Override
+    protected DBCmd bind(List<Token> parameters) throws ParseException {
+        checkParameterAmount(parameters);
+        if (parameterAmount == 0) { return this; }
+        Token literal = parameters.get(filePathParameter);
+        if (literal.getType() != TokenType.STRING_LITERAL) {
+            throw new ParseException("Invalid file path " + literal + ": File path should be a string literal");
+        }
+        LoadCMD loadCmd = new LoadCMD();
+        loadCmd.tableNames = tableNames;
+        loadCmd.filePath = literal.getValue();
+        return loadCmd;
+    }
+
+    @Override
+    public String query(Session session) {
+        try {
+            checkTableNames();
+            Table table = session.getDB().getTableByName(tableNames.get(0));
+            return writeTable(session, table, () -> {
+                table.addRowsWithoutID(readRows(table, resolveImportPath(session)));
+                saveTable(session);
+                return "[OK]";
+            });
+        } catch (TableException | FailedReadingFileException | FailedCreatingFileException | IOException e) {
+            return "[ERROR]: Failed loading data--" + e.getMessage();
+        } catch (Exception e) {
+            return "[ERROR]: Failed loading data";
+        }
+    }
+
+    /** Resolves the file path against the import folder, refusing paths and links leading out of it. */
+    private Path resolveImportPath(Session session) throws IOException, FailedReadingFileException {
+        Path importFolder = Paths.get(session.getStorageFolderPath(), IMPORT_FOLDER_NAME).toAbsolutePath().normalize();
+        Path path = importFolder.resolve(filePath).normalize();
+        if (!path.startsWith(importFolder)) {
+            throw new FailedReadingFileException(filePath + " is outside the import folder");
+        }
+        if (!Files.isRegularFile(path) || !path.toRealPath().startsWith(importFolder.toRealPath())) {
+            throw new FailedReadingFileException(filePath + " is not a file in the import folder");
+        }
+        return path;
+    }
+
+    /** Reads every row before any is added, so a file with one invalid field loads nothing. */
+    private List<List<String>> readRows(Table table, Path path) throws IOException, FailedReadingFileException,
+            InsertInsufficientValuesException, InsertTooManyValuesException {
+        char delimiter = filePath.toLowerCase().endsWith(".csv") ? ',' : '\t';
+        List<List<String>> rows = new ArrayList<>();
+        try (BufferedReader bufferedReader = Files.newBufferedReader(path)) {
+            String header = bufferedReader.readLine();
+            if (header == null) {
+                throw new FailedReadingFileException(filePath + " has no header line");
+            }
+            int[] columnIndexes = getColumnIndexes(table, splitLine(header, delimiter));
+            int valueAmount = table.getColumnNames().length - 1;
+            String line;
+            int lineNumber = 1;
+            while ((line = bufferedReader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) { continue; }
+                List<String> fields = splitLine(line, delimiter);
+                if (fields.size() > columnIndexes.length) {
+                    throw new InsertTooManyValuesException(table.getName());
+                } else if (fields.size() < columnIndexes.length) {
+                    throw new InsertInsufficientValuesException(table.getName());
+                }
+                List<String> row = new ArrayList<>(Collections.nCopies(valueAmount, "NULL"));
+                for (int i = 0; i < columnIndexes.length; i++) {
+                    if (columnIndexes[i] > 0) { row.set(columnIndexes[i] - 1, toValue(fields.get(i), lineNumber)); }
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Maps every field of the header onto its table column, the id column being mapped to 0 so it is skipped.
+     * Errors name fields by position only, never echoing the contents of the file.
+     */
+    private static int[] getColumnIndexes(Table table, List<String> names) throws FailedReadingFileException {
+        int[] columnIndexes = new int[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            columnIndexes[i] = table.getColumnIdxByName(names.get(i).trim());
+            if (columnIndexes[i] < 0) {
+                throw new FailedReadingFileException("header field " + (i + 1) + " names no column of " + table.getName());
+            }
+        }
+        return columnIndexes;
+    }
+
+    private static List<String> splitLine(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = line.indexOf(delimiter, start)) >= 0) {
+            fields.add(line.substring(start, end));
+            start = end + 1;
+        }
+        fields.add(line.substring(start));
+        return fields;
+    }
+
+    /**
+     * Checks and stores a field the way INSERT checks and stores a literal, so no value holds a character the table
+     * files cannot keep, such as a tab. An empty field is NULL, and a field of no other type is taken as a string.
+     */
+    private static String toValue(String field, int lineNumber) throws FailedReadingFileException {
+        String value = field.trim();
+        if (value.isEmpty()) { return "NULL"; }
+        boolean isDoubleQuoted = value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"");
+        String text = isDoubleQuoted ? "'" + value.substring(1, value.length() - 1) + "'" : value;
+        Token literal = Lexer.readLiteral(text);
+        if (literal == null) { literal = Lexer.readLiteral("'" + text + "'"); }
+        if (literal == null) {
+            throw new FailedReadingFileException("line " + lineNumber + " holds an invalid value");
+        }
+        return literal.getValue();
+    }
+}
@@ -1,189 +1,503 @@
 package edu.uob;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validates the tokens of a query and builds the command they describe in the same pass,
+ * so the command holds resolved names, literals and conditions and never looks at the tokens again.
+ * Literals are recognised by the type the lexer gave their tokens, so no literal is scanned twice.
+ * A template may hold ? placeholders wherever a literal is expected, which are numbered from left
+ * to right and filled in later through {@link DBCmd#bind(List)}.
+ */
 public class Parser {
     private DBCmd cmd;
-    private final String[] tokens;
+    private final List<Token> tokens;
+    private final boolean isTemplate;
     private int currentIdx;
     private boolean isOutOfBound = false;
+    private int parameterAmount = 0;
+
+    public Parser(List<Token> tokens) {
+        this(tokens, false);
+    }
 
-    public Parser(String[] tokens) {
+    public Parser(List<Token> tokens, boolean isTemplate) {
         this.tokens = tokens;
+        this.isTemplate = isTemplate;
         this.currentIdx = 0;
     }
 
     public DBCmd parse() throws ParseException {
-        CmdType cmdType = CmdType.parse(tokens[currentIdx]);
+        CmdType cmdType = CmdType.parse(text());
         switch (cmdType) {
             case USE -> {
-                parseUse();
-                cmd = new UseCMD();
-                return cmd;
+                UseCMD useCmd = new UseCMD();
+                cmd = useCmd;
+                parseUse(useCmd);
             }
             case CREATE -> {
-                parseCreate();
-                cmd = new CreateCMD();
-                return cmd;
+                CreateCMD createCmd = new CreateCMD();
+                cmd = createCmd;
+                parseCreate(createCmd);
             }
             case DROP -> {
-                parseDrop();
-                cmd = new DropCMD();
-                return cmd;
+                DropCMD dropCmd = new DropCMD();
+                cmd = dropCmd;
+                parseDrop(dropCmd);
             }
             case ALTER -> {
-                parseAlter();
-                cmd = new AlterCMD();
-                return cmd;
+                AlterCMD alterCmd = new AlterCMD();
+                cmd = alterCmd;
+                parseAlter(alterCmd);
             }
             case INSERT -> {
-                parseInsert();
-                cmd = new InsertCMD();
-                return cmd;
+                InsertCMD insertCmd = new InsertCMD();
+                cmd = insertCmd;
+                parseInsert(insertCmd);
             }
             case SELECT -> {
-                parseSelect();
-                cmd = new SelectCMD();
-                return cmd;
+                SelectCMD selectCmd = new SelectCMD();
+                cmd = selectCmd;
+                parseSelect(selectCmd);
             }
             case UPDATE -> {
-                parseUpdate();
-                cmd = new UpdateCMD();
-                return cmd;
+                UpdateCMD updateCmd = new UpdateCMD();
+                cmd = updateCmd;
+                parseUpdate(updateCmd);
             }
             case DELETE -> {
-                parseDelete();
-                cmd = new DeleteCMD();
-                return cmd;
+                DeleteCMD deleteCmd = new DeleteCMD();
+                cmd = deleteCmd;
+                parseDelete(deleteCmd);
             }
             case JOIN -> {
-                parseJoin();
-                cmd = new JoinCMD();
-                return cmd;
+                JoinCMD joinCmd = new JoinCMD();
+                cmd = joinCmd;
+                parseJoin(joinCmd);
+            }
+            case LOAD -> {
+                LoadCMD loadCmd = new LoadCMD();
+                cmd = loadCmd;
+                parseLoad(loadCmd);
+            }
+            case PREPARE -> {
+                PrepareCMD prepareCmd = new PrepareCMD();
+                cmd = prepareCmd;
+                parsePrepare(prepareCmd);
+            }
+            case EXECUTE -> {
+                ExecuteCMD executeCmd = new ExecuteCMD();
+                cmd = executeCmd;
+                parseExecute(executeCmd);
+            }
+            case DEALLOCATE -> {
+                DeallocateCMD deallocateCmd = new DeallocateCMD();
+                cmd = deallocateCmd;
+                moveOn();
+                deallocateCmd.statementName = parseStatementName();
+                parseClosingBracket();
+            }
+            case BEGIN -> {
+                cmd = new BeginCMD();
+                moveOn();
+                parseClosingBracket();
+            }
+            case COMMIT -> {
+                cmd = new CommitCMD();
+                moveOn();
+                parseClosingBracket();
+            }
+            case ROLLBACK -> {
+                cmd = new RollbackCMD();
+                moveOn();
+                parseClosingBracket();
+            }
+            case DECLARE -> {
+                DeclareCMD declareCmd = new DeclareCMD();
+                cmd = declareCmd;
+                parseDeclare(declareCmd);
+            }
+            case FETCH -> {
+                FetchCMD fetchCmd = new FetchCMD();
+                cmd = fetchCmd;
+                parseFetch(fetchCmd);
+            }
+            case CLOSE -> {
+                CloseCMD closeCmd = new CloseCMD();
+                cmd = closeCmd;
+                moveOn();
+                closeCmd.cursorName = parseStatementName();
+                parseClosingBracket();
             }
             default -> throw new ParseException("Invalid CommandType: " + cmdType);
         }
+        cmd.parameterAmount = parameterAmount;
+        return cmd;
+    }
+
+    private Token current() {
+        return tokens.get(currentIdx);
+    }
+
+    private String text() {
+        return current().getText();
+    }
+
+    private boolean isLiteral() {
+        return current().getType().isLiteral();
+    }
+
+    private boolean isParameter() {
+        return isTemplate && !isOutOfBound && current().getType() == TokenType.PARAMETER;
     }
 
     private void parseClosingBracket() throws ParseException {
-        if (isOutOfBound || !tokens[currentIdx].equals(";")) {
+        if (isOutOfBound || !text().equals(";")) {
             throw new ParseException("Invalid Command: Lack of ending ;" );
         }
     }
 
-    private void parseUse() throws ParseException {
+    /** Parses the statement following AS as a template, so its placeholders are bound on every EXECUTE. */
+    private void parsePrepare(PrepareCMD prepareCmd) throws ParseException {
+        moveOn();
+        prepareCmd.statementName = parseStatementName();
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.AS, text())) {
+            throw new ParseException("Invalid PREPARE Command: Lack of AS" );
+        }
+        moveOn();
+        if (isOutOfBound || !CmdType.isCmdType(text()) || !CmdType.parse(text()).isPreparable()) {
+            throw new ParseException("Invalid PREPARE Command: Only SELECT, INSERT, UPDATE, DELETE, JOIN and LOAD can be prepared" );
+        }
+        prepareCmd.statement = new Parser(tokens.subList(currentIdx, tokens.size()), true).parse();
+    }
+
+    private void parseDeclare(DeclareCMD declareCmd) throws ParseException {
+        moveOn();
+        declareCmd.cursorName = parseStatementName();
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.CURSOR, text())) {
+            throw new ParseException("Invalid DECLARE Command: Lack of CURSOR" );
+        }
+        moveOn();
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.FOR, text())) {
+            throw new ParseException("Invalid DECLARE Command: Lack of FOR" );
+        }
+        moveOn();
+        if (isOutOfBound || !CmdType.isCmdType(text()) || CmdType.parse(text()) != CmdType.SELECT) {
+            throw new ParseException("Invalid DECLARE Command: Only SELECT can be declared as a cursor" );
+        }
+        SelectCMD selectCmd = new SelectCMD();
+        parseSelect(selectCmd);
+        selectCmd.parameterAmount = parameterAmount;
+        declareCmd.select = selectCmd;
+    }
+
+    private void parseFetch(FetchCMD fetchCmd) throws ParseException {
+        moveOn();
+        if (isParameter()) {
+            fetchCmd.rowAmountParameter = parameterAmount++;
+        } else if (isOutOfBound || !isRowAmount(current())) {
+            throw new ParseException("Invalid FETCH Command: Row amount should be a non-negative integer" );
+        } else {
+            fetchCmd.rowAmount = parseRowAmount(current());
+        }
+        moveOn();
+        if (isOutOfBound || !DBKeyWords.isTargetType(DBKeyWords.FROM, text())) {
+            throw new ParseException("Invalid FETCH Command: Lack of FROM" );
+        }
+        moveOn();
+        fetchCmd.cursorName = parseStatementName();
+        parseClosingBracket();
+    }
+
+    private void parseExecute(ExecuteCMD executeCmd) throws ParseException {
+        moveOn();
+        executeCmd.statementName = parseStatementName();
+        if (!isOutOfBound && text().equals("(")) {
+            moveOn();
+            if (!isOutOfBound && !text().equals(")")) {
+                parseParameterList(executeCmd);
+            }
+            if (isOutOfBound || !text().equals(")")) {
+                throw new ParseException("Invalid EXECUTE Command: Lack of an closing parenthesis" );
+            }
+            moveOn();
+        }
+        parseClosingBracket();
+    }
+
+    /** Keeps the parameters as written, as they are only checked and resolved once bound to their placeholders. */
+    private void parseParameterList(ExecuteCMD executeCmd) throws ParseException {
+        if (!isLiteral()) {
+            throw new ParseException("Invalid EXECUTE Command: Invalid Value " + text() );
+        }
+        executeCmd.parameters.add(current());
+        moveOn();
+        if (isOutOfBound || !text().equals(",")) { return; }
+        moveOn();
+        parseParameterList(executeCmd);
+    }
+
+    private String parseStatementName() throws ParseException {
+        if (isOutOfBound) {
+            throw new ParseException("Invalid Command: Lack of statement name" );
+        }
+        String statementName = text();
+        parsePlainText(statementName);
+        moveOn();
+        return statementName.toLowerCase();
+    }
+
+    private void parseUse(UseCMD useCmd) throws ParseException {
         moveOn();
-        parseDataBaseName();
+        useCmd.dbName = parseDataBaseName();
         parseClosingBracket();
     }
 
-    private void parseNameValueList() throws ParseException {
-        parseNameValuePair();
-        if (isOutOfBound || !tokens[currentIdx].equals(",")) { return; }
+    private void parseNameValueList(UpdateCMD updateCmd) throws ParseException {
+        parseNameValuePair(updateCmd);
+        if (isOutOfBound || !text().equals(",")) { return; }
         moveOn();
-        parseNameValueList();
+        parseNameValueList(updateCmd);
     }
 
-    private void parseNameValuePair() throws ParseException {
-        parseAttributeName();
-        if (!tokens[currentIdx].equals("=")) {
+    private void parseNameValuePair(UpdateCMD updateCmd) throws ParseException {
+        String attributeName = parseAttributeName();
+        if (!text().equals("=")) {
             throw new ParseException("Invalid NameValuePair: Lack of '='" );
         }
         moveOn();
-        if (!isValue(tokens[currentIdx])) {
+        if (isParameter()) {
+            updateCmd.nameValueMap.put(getColumnName(attributeName), text());
+            updateCmd.parameterIndexes.put(getColumnName(attributeName), parameterAmount++);
+            moveOn();
+            return;
+        }
+        if (!isLiteral()) {
             throw new ParseException("Invalid NameValuePair: Invalid Value" );
         }
+        updateCmd.nameValueMap.put(getColumnName(attributeName), current().getValue());
+        updateCmd.parameterIndexes.remove(getColumnName(attributeName));
         moveOn();
     }
 
-    private void parseCreate() throws ParseException {
+    private void parseCreate(CreateCMD createCmd) throws ParseException {
         moveOn();
-        DBKeyWords keyWord = DBKeyWords.parse(tokens[currentIdx]);
+        DBKeyWords keyWord = DBKeyWords.parse(text());
         if (keyWord.equals(DBKeyWords.DATABASE)) {
-            parseCreateDatabase();
+            parseCreateDatabase(createCmd);
         } else if (keyWord.equals(DBKeyWords.TABLE)) {
-            parseCreateTable();
+            parseCreateTable(createCmd);
         } else {
             throw new ParseException("Invalid Create Command: Lack of command TABLE or DATABASE");
         }
         parseClosingBracket();
     }
 
-    private void parseUpdate() throws ParseException {
+    private void parseUpdate(UpdateCMD updateCmd) throws ParseException {
         moveOn();
-        parseTableName(tokens[currentIdx]);
+        updateCmd.tableNames.add(parseTableName(text()));
         moveOn();
-        if (!DBKeyWords.parse(tokens[currentIdx]).equals(DBKeyWords.SET)) {
+        if (!DBKeyWords.parse(text()).equals(DBKeyWords.SET)) {
             throw new ParseException("Invalid UPDATE Command: Lack of SET" );
         }
         moveOn();
-        parseNameValueList();
-        if (!DBKeyWords.parse(tokens[currentIdx]).equals(DBKeyWords.WHERE)) {
+        parseNameValueList(updateCmd);
+        if (!DBKeyWords.parse(text()).equals(DBKeyWords.WHERE)) {
             throw new ParseException("Invalid UPDATE Command: Lack of WHERE" );
         }
         moveOn();
-        parseCondition();
+        updateCmd.condition = parseCondition();
         parseClosingBracket();
     }
 
-    private void parseSelect() throws ParseException {
+    private void parseSelect(SelectCMD selectCmd) throws ParseException {
         moveOn();
-        parseWildAttribList();
-        if (!DBKeyWords.isTargetType(DBKeyWords.FROM, tokens[currentIdx])) {
+        parseDistinct(selectCmd);
+        parseWildAttribList(selectCmd);
+        if (!DBKeyWords.isTargetType(DBKeyWords.FROM, text())) {
             throw new ParseException("Invalid SELECT Command: Lack of FROM" );
         }
         moveOn();
-        parseTableName(tokens[currentIdx]);
+        selectCmd.tableNames.add(parseTableName(text()));
         moveOn();
-        if (isOutOfBound || tokens[currentIdx].equals(";")) { return; }
-        if (!DBKeyWords.isTargetType(DBKeyWords.WHERE, tokens[currentIdx])) {
+        if (isOutOfBound || text().equals(";")) { return; }
+        if (DBKeyWords.isTargetType(DBKeyWords.WHERE, text())) {
+            moveOn();
+            selectCmd.condition = parseCondition();
+        } else if (!isSelectModifier(text())) {
             throw new ParseException("Invalid SELECT Command: Lack of WHERE" );
         }
-        moveOn();
-        parseCondition();
+        parseGroupBy(selectCmd);
+        parseOrderBy(selectCmd);
+        parseLimit(selectCmd);
         parseClosingBracket();
     }
 
-    private void parseWildAttribList() throws ParseException {
-        if (tokens[currentIdx].equals("*")) {
+    private boolean isSelectModifier(String token) {
+        boolean isGroup = ClauseKeyWords.isTargetType(ClauseKeyWords.GROUP, token);
+        boolean isOrder = ClauseKeyWords.isTargetType(ClauseKeyWords.ORDER, token);
+        return isGroup || isOrder || ClauseKeyWords.isTargetType(ClauseKeyWords.LIMIT, token);
+    }
+
+    private void parseOrderBy(SelectCMD selectCmd) throws ParseException {
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.ORDER, text())) { return; }
+        moveOn();
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.BY, text())) {
+            throw new ParseException("Invalid ORDER BY: Lack of BY" );
+        }
+        moveOn();
+        if (isOutOfBound) {
+            throw new ParseException("Invalid ORDER BY: Lack of attribute name" );
+        }
+        selectCmd.orderColumn = getColumnName(parseAttributeName());
+        if (isOutOfBound) { return; }
+        boolean isAscending = ClauseKeyWords.isTargetType(ClauseKeyWords.ASC, text());
+        selectCmd.isDescending = ClauseKeyWords.isTargetType(ClauseKeyWords.DESC, text());
+        if (isAscending || selectCmd.isDescending) {
             moveOn();
+        }
+    }
+
+    private void parseLimit(SelectCMD selectCmd) throws ParseException {
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.LIMIT, text())) { return; }
+        moveOn();
+        if (isParameter()) {
+            selectCmd.limitParameter = parameterAmount++;
+        } else if (isOutOfBound || !isRowAmount(current())) {
+            throw new ParseException("Invalid LIMIT: Row amount should be a non-negative integer" );
+        } else {
+            selectCmd.limit = parseRowAmount(current());
+        }
+        moveOn();
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.OFFSET, text())) { return; }
+        moveOn();
+        if (isParameter()) {
+            selectCmd.offsetParameter = parameterAmount++;
+        } else if (isOutOfBound || !isRowAmount(current())) {
+            throw new ParseException("Invalid OFFSET: Row amount should be a non-negative integer" );
+        } else {
+            selectCmd.offset = parseRowAmount(current());
+        }
+        moveOn();
+    }
+
+    /** Row amounts are integer literals written without a sign. */
+    protected static boolean isRowAmount(Token token) {
+        return token.getType() == TokenType.INTEGER_LITERAL && CharClass.isDigit(token.getText().charAt(0));
+    }
+
+    /** Reads a row amount too large for an int as the largest int, which is as good as no bound. */
+    protected static int parseRowAmount(Token token) {
+        try {
+            return Integer.parseInt(token.getText());
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private void parseDistinct(SelectCMD selectCmd) throws ParseException {
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.DISTINCT, text())) { return; }
+        // A column called distinct is selected rather than used as a modifier
+        if (isNextToken(",") || (currentIdx + 1 < tokens.size() && DBKeyWords.isTargetType(DBKeyWords.FROM, tokens.get(currentIdx + 1).getText()))) {
             return;
         }
-        parseAttributeList();
+        selectCmd.isDistinct = true;
+        moveOn();
     }
 
-    private void parseJoin() throws ParseException {
+    private void parseWildAttribList(SelectCMD selectCmd) throws ParseException {
+        if (text().equals("*")) {
+            selectCmd.colNames.add("*");
+            selectCmd.aggregates.add(null);
+            moveOn();
+            return;
+        }
+        parseSelectList(selectCmd);
+    }
+
+    private void parseSelectList(SelectCMD selectCmd) throws ParseException {
+        if (AggregateFunction.isAggregateFunction(text()) && isNextToken("(")) {
+            parseAggregate(selectCmd);
+        } else {
+            selectCmd.colNames.add(getColumnName(parseAttributeName()));
+            selectCmd.aggregates.add(null);
+        }
+        if (isOutOfBound || !text().equals(",")) { return; }
+        moveOn();
+        parseSelectList(selectCmd);
+    }
+
+    private void parseAggregate(SelectCMD selectCmd) throws ParseException {
+        AggregateFunction aggregate = AggregateFunction.parse(text());
+        boolean isCount = aggregate.equals(AggregateFunction.COUNT);
+        moveOn();
+        moveOn();
+        if (isOutOfBound) {
+            throw new ParseException("Invalid Aggregate: Lack of attribute name" );
+        }
+        if (isCount && text().equals("*")) {
+            selectCmd.colNames.add("*");
+            moveOn();
+        } else {
+            selectCmd.colNames.add(getColumnName(parseAttributeName()));
+        }
+        selectCmd.aggregates.add(aggregate);
+        if (isOutOfBound || !text().equals(")")) {
+            throw new ParseException("Invalid Aggregate: Lack of closing parenthesis" );
+        }
+        moveOn();
+    }
+
+    private boolean isNextToken(String token) {
+        return currentIdx + 1 < tokens.size() && tokens.get(currentIdx + 1).getText().equals(token);
+    }
+
+    private void parseGroupBy(SelectCMD selectCmd) throws ParseException {
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.GROUP, text())) { return; }
         moveOn();
-        parseTableName(tokens[currentIdx]);
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.BY, text())) {
+            throw new ParseException("Invalid GROUP BY: Lack of BY" );
+        }
         moveOn();
-        if (!DBKeyWords.isTargetType(DBKeyWords.AND, tokens[currentIdx])) {
+        if (isOutOfBound) {
+            throw new ParseException("Invalid GROUP BY: Lack of attribute name" );
+        }
+        selectCmd.groupColumn = getColumnName(parseAttributeName());
+    }
+
+    private void parseJoin(JoinCMD joinCmd) throws ParseException {
+        moveOn();
+        joinCmd.tableNames.add(parseTableName(text()));
+        moveOn();
+        if (!DBKeyWords.isTargetType(DBKeyWords.AND, text())) {
             throw new ParseException("Invalid JOIN Command: Lack of AND between two table names" );
         }
         moveOn();
-        parseTableName(tokens[currentIdx]);
+        joinCmd.tableNames.add(parseTableName(text()));
         moveOn();
-        if (!DBKeyWords.isTargetType(DBKeyWords.ON, tokens[currentIdx])) {
+        if (!DBKeyWords.isTargetType(DBKeyWords.ON, text())) {
             throw new ParseException("Invalid JOIN Command: Lack of ON" );
         }
         moveOn();
-        parseAttributeName();
-        if (!DBKeyWords.isTargetType(DBKeyWords.AND, tokens[currentIdx])) {
+        // Qualified names are kept whole, as the table part tells which table the column belongs to
+        joinCmd.colNames.add(parseAttributeName());
+        if (!DBKeyWords.isTargetType(DBKeyWords.AND, text())) {
             throw new ParseException("Invalid JOIN Command: Lack of AND between two column names" );
         }
         moveOn();
-        parseAttributeName();
+        joinCmd.colNames.add(parseAttributeName());
         parseClosingBracket();
     }
 
-    private void parseDrop() throws ParseException {
+    private void parseDrop(DropCMD dropCmd) throws ParseException {
         moveOn();
-        if (DBKeyWords.isTargetType(DBKeyWords.DATABASE, tokens[currentIdx])) {
+        if (DBKeyWords.isTargetType(DBKeyWords.DATABASE, text())) {
             moveOn();
-            parseDataBaseName();
-        } else if (DBKeyWords.isTargetType(DBKeyWords.TABLE, tokens[currentIdx])) {
+            dropCmd.dbName = parseDataBaseName();
+        } else if (DBKeyWords.isTargetType(DBKeyWords.TABLE, text())) {
             moveOn();
-            parseTableName(tokens[currentIdx]);
+            dropCmd.tableNames.add(parseTableName(text()));
             moveOn();
         } else {
             throw new ParseException("Invalid DROP Command: Lack of command TABLE or DATABASE");
@@ -191,42 +505,52 @@ public class Parser {
         parseClosingBracket();
     }
 
-    private void parseDelete() throws ParseException {
+    private void parseDelete(DeleteCMD deleteCmd) throws ParseException {
         moveOn();
-        if (!DBKeyWords.isTargetType(DBKeyWords.FROM, tokens[currentIdx])) {
+        if (!DBKeyWords.isTargetType(DBKeyWords.FROM, text())) {
             throw new ParseException("Invalid DELETE Command: Lack of command FROM" );
         }
         moveOn();
-        parseTableName(tokens[currentIdx]);
+        deleteCmd.tableNames.add(parseTableName(text()));
         moveOn();
-        if (!DBKeyWords.isTargetType(DBKeyWords.WHERE, tokens[currentIdx])) {
+        if (!DBKeyWords.isTargetType(DBKeyWords.WHERE, text())) {
             throw new ParseException("Invalid DELETE Command: Lack of command WHERE" );
         }
         moveOn();
-        parseCondition();
+        deleteCmd.condition = parseCondition();
         parseClosingBracket();
     }
-    private void parseCondition() throws ParseException {
-        if (tokens[currentIdx].equals("(")) {
+
+    /** Parses conditions joined by AND or OR, the operator binding the condition before it to all that follow. */
+    private Condition parseCondition() throws ParseException {
+        Condition condition;
+        if (text().equals("(")) {
             moveOn();
-            parseCondition();
-            if (!tokens[currentIdx].equals(")")) {
+            condition = parseCondition();
+            if (!text().equals(")")) {
                 throw new ParseException("Invalid Condition Command: Lack of closing parenthesis" );
             }
         } else {
-            parseAttributeName();
-            if (!isComparator(tokens[currentIdx])) {
+            String attributeName = getColumnName(parseAttributeName());
+            if (!isComparator(text())) {
                 throw new ParseException("Invalid Condition Command: Invalid Comparator" );
             }
+            String comparator = text();
             moveOn();
-            if (!isValue(tokens[currentIdx])) {
+            boolean isParameter = isParameter();
+            if (!isParameter && !isLiteral()) {
                 throw new ParseException("Invalid Condition Command: Invalid Value" );
             }
+            condition = new Condition(attributeName, comparator, text());
+            if (isParameter) {
+                condition.parameterIndex = parameterAmount++;
+            }
         }
         moveOn();
-        if (isOutOfBound || !isBoolOperator(tokens[currentIdx])) { return; }
+        if (isOutOfBound || !isBoolOperator(text())) { return condition; }
+        String boolOperator = text();
         moveOn();
-        parseCondition();
+        return new Condition(condition, boolOperator, parseCondition());
     }
 
     private boolean isBoolOperator(String value) {
@@ -236,121 +560,105 @@ public class Parser {
     }
 
     private boolean isComparator(String value) {
-        Pattern pattern = Pattern.compile("==|>|<|>=|<=|!=");
-        Matcher matcher = pattern.matcher(value.toLowerCase());
-        if (matcher.find()) { return true; }
-        return DBKeyWords.isTargetType(DBKeyWords.LIKE, value);
+        return switch (value) {
+            case "==", ">", "<", ">=", "<=", "!=" -> true;
+            default -> DBKeyWords.isTargetType(DBKeyWords.LIKE, value);
+        };
     }
 
-    private void parseAlter() throws ParseException {
+    private void parseAlter(AlterCMD alterCmd) throws ParseException {
         moveOn();
-        if (!DBKeyWords.isTargetType(DBKeyWords.TABLE, tokens[currentIdx])) {
+        if (!DBKeyWords.isTargetType(DBKeyWords.TABLE, text())) {
             throw new ParseException("Invalid ALTER Command: Lack of command TABLE" );
         }
         moveOn();
-        parseTableName(tokens[currentIdx]);
+        alterCmd.tableNames.add(parseTableName(text()));
         moveOn();
-        parseAlterationType(tokens[currentIdx]);
-        parseAttributeName();
+        alterCmd.alterationType = text();
+        parseAlterationType(text());
+        alterCmd.colNames.add(getColumnName(parseAttributeName()));
         parseClosingBracket();
     }
 
-    private void parseInsert() throws ParseException {
+    private void parseInsert(InsertCMD insertCmd) throws ParseException {
         moveOn();
-        if (!DBKeyWords.isTargetType(DBKeyWords.INTO, tokens[currentIdx])) {
+        if (!DBKeyWords.isTargetType(DBKeyWords.INTO, text())) {
             throw new ParseException("Invalid INSERT Command: Lack of command INTO" );
         }
         moveOn();
-        parseTableName(tokens[currentIdx]);
+        insertCmd.tableNames.add(parseTableName(text()));
         moveOn();
-        if (!DBKeyWords.isTargetType(DBKeyWords.VALUES, tokens[currentIdx])) {
+        if (!DBKeyWords.isTargetType(DBKeyWords.VALUES, text())) {
             throw new ParseException("Invalid INSERT Command: Lack of command INTO" );
         }
         moveOn();
-        if (!tokens[currentIdx].equals("(")) {
-            throw new ParseException("Invalid INSERT Command: Lack of an opening parenthesis" );
+        parseValueRows(insertCmd);
+        parseClosingBracket();
+    }
+
+    /** Loops over the value rows rather than recursing, as a single INSERT may carry any amount of them. */
+    private void parseValueRows(InsertCMD insertCmd) throws ParseException {
+        while (true) {
+            if (isOutOfBound || !text().equals("(")) {
+                throw new ParseException("Invalid INSERT Command: Lack of an opening parenthesis" );
+            }
+            moveOn();
+            List<String> values = new ArrayList<>();
+            List<Integer> parameterIndexes = new ArrayList<>();
+            parseValueList(values, parameterIndexes);
+            if (isOutOfBound || !text().equals(")")) {
+                throw new ParseException("Invalid INSERT Command: Lack of an closing parenthesis" );
+            }
+            insertCmd.rows.add(values);
+            insertCmd.parameterIndexes.add(parameterIndexes);
+            moveOn();
+            if (isOutOfBound || !text().equals(",")) { return; }
+            moveOn();
         }
+    }
+
+    private void parseLoad(LoadCMD loadCmd) throws ParseException {
         moveOn();
-        parseValueList();
-        if (!tokens[currentIdx].equals(")")) {
-            throw new ParseException("Invalid INSERT Command: Lack of an closing parenthesis" );
+        if (isOutOfBound || !ClauseKeyWords.isTargetType(ClauseKeyWords.DATA, text())) {
+            throw new ParseException("Invalid LOAD Command: Lack of DATA" );
         }
         moveOn();
-        parseClosingBracket();
-    }
-
-    private void parseValueList() throws ParseException {
-        if (!isValue(tokens[currentIdx])) {
-            throw new ParseException("Invalid INSERT Command: Invalid Value " + tokens[currentIdx] );
+        if (isParameter()) {
+            loadCmd.filePathParameter = parameterAmount++;
+        } else if (isOutOfBound || current().getType() != TokenType.STRING_LITERAL) {
+            throw new ParseException("Invalid LOAD Command: File path should be a string literal" );
+        } else {
+            loadCmd.filePath = current().getValue();
         }
         moveOn();
-        if (!tokens[currentIdx].equals(",")) { return; }
+        if (isOutOfBound || !DBKeyWords.isTargetType(DBKeyWords.INTO, text())) {
+            throw new ParseException("Invalid LOAD Command: Lack of INTO" );
+        }
         moveOn();
-        parseValueList();
-    }
-
-    private boolean isValue(String value) {
-        boolean isNullType = DBKeyWords.isTargetType(DBKeyWords.NULL, value);
-        if (isNullType || isStringLiteral(value)) { return true; }
-        return isIntegerLiteral(value) || isFloatLiteral(value) || isBooleanLiteral(value);
+        loadCmd.tableNames.add(parseTableName(text()));
+        moveOn();
+        parseClosingBracket();
     }
 
-    private boolean isStringLiteral(String value) {
-        Pattern pattern = Pattern.compile("^'(.*)'$");
-        Matcher matcher = pattern.matcher(value);
-        if (!matcher.find()) { return false; }
-        if (value.isEmpty()) { return true; }
-        for (int i = 1; i < value.length() - 1; i++) {
-            if (!isCharLiteral(value.substring(i, i + 1))) { return false; }
+    private void parseValueList(List<String> values, List<Integer> parameterIndexes) throws ParseException {
+        if (isParameter()) {
+            values.add(text());
+            parameterIndexes.add(parameterAmount++);
+        } else if (!isLiteral()) {
+            throw new ParseException("Invalid INSERT Command: Invalid Value " + text() );
+        } else {
+            values.add(current().getValue());
+            parameterIndexes.add(-1);
         }
-        return true;
-    }
-
-    private boolean isCharLiteral(String value) {
-        return value.equals(" ") || isLetter(value) || isSymbol(value) || isDigit(value);
-    }
-    private boolean isSymbol(String letter) {
-        String patternString = "!|#|\\$|%|&|\\(|\\)|\\*|\\+|,|-|\\.|/|:|;|>|=|<|\\?|@|\\[|\\\\|]|\\^|_|`|\\{|}|~";
-        return letter.matches(patternString);
+        moveOn();
+        if (!text().equals(",")) { return; }
+        moveOn();
+        parseValueList(values, parameterIndexes);
     }
 
     private void moveOn() {
         currentIdx++;
-        isOutOfBound = tokens.length <= currentIdx;
-    }
-
-    private boolean isBooleanLiteral(String value) {
-        boolean isTrue = DBKeyWords.isTargetType(DBKeyWords.TRUE, value);
-        boolean isFalse = DBKeyWords.isTargetType(DBKeyWords.FALSE, value);
-        return isTrue || isFalse;
-    }
-    private boolean isFloatLiteral(String value) {
-        String patternString = "\\.";
-        Pattern pattern = Pattern.compile(patternString);
-        Matcher matcher = pattern.matcher(value);
-        if (!matcher.find()) { return false; }
-        if (value.charAt(0) == '+' || value.charAt(0) == '-') {
-            String[] digits = value.substring(1).split("\\.");
-            return isDigitSequence(digits[0]) && isDigitSequence(digits[1]);
-        }
-        String[] digits = value.split("\\.");
-        return isDigitSequence(digits[0]) && isDigitSequence(digits[1]);
-    }
-
-    private boolean isIntegerLiteral(String value) {
-        if (value.charAt(0) == '+' || value.charAt(0) == '-') {
-            return isDigitSequence(value.substring(1));
-        }
-        return isDigitSequence(value);
-    }
-
-    private boolean isDigitSequence(String value) {
-        for (int i = 0; i < value.length(); i++) {
-            if (!isDigit(value.substring(i, i + 1))) {
-                return false;
-            }
-        }
-        return true;
+        isOutOfBound = tokens.size() <= currentIdx;
     }
 
     private void parseAlterationType(String type) throws ParseException {
@@ -363,140 +671,72 @@ public class Parser {
         throw new ParseException("Invalid AlterationType: " +  type);
     }
 
-    private void parseCreateTable() throws ParseException {
+    private void parseCreateTable(CreateCMD createCmd) throws ParseException {
         moveOn();
-        parseTableName(tokens[currentIdx]);
+        createCmd.tableNames.add(parseTableName(text()));
         moveOn();
-        if (isOutOfBound || tokens[currentIdx].equals(";")) { return; }
-        if (!tokens[currentIdx].equals("(")) {
+        if (isOutOfBound || text().equals(";")) { return; }
+        if (!text().equals("(")) {
             throw new ParseException("Invalid Create Table Command: Lack of command: (" );
         }
         moveOn();
-        parseAttributeList();
-        if (!tokens[currentIdx].equals(")")) {
+        parseAttributeList(createCmd);
+        if (!text().equals(")")) {
             throw new ParseException("Invalid Create Table Command: Lack of command: )" );
         }
         moveOn();
     }
 
-    private void parseAttributeList() throws ParseException {
-        parseAttributeName();
-        if (!tokens[currentIdx].equals(",")) { return; }
+    private void parseAttributeList(CreateCMD createCmd) throws ParseException {
+        createCmd.colNames.add(getColumnName(parseAttributeName()));
+        if (!text().equals(",")) { return; }
         moveOn();
-        parseAttributeList();
+        parseAttributeList(createCmd);
     }
 
-    private void parseAttributeName() throws ParseException {
-        String patternString = "\\.";
-        Pattern pattern = Pattern.compile(patternString);
-        Matcher matcher = pattern.matcher(tokens[currentIdx]);
-        if (matcher.find()) {
-            String[] texts = tokens[currentIdx].split("\\.");
+    /** Validates an attribute name, optionally qualified by its table name, and returns it as written. */
+    private String parseAttributeName() throws ParseException {
+        String attributeName = text();
+        if (attributeName.indexOf('.') >= 0) {
+            String[] texts = attributeName.split("\\.");
             parseTableName(texts[0]);
             parsePlainText(texts[1]);
         } else {
-            parsePlainText(tokens[currentIdx]);
+            parsePlainText(attributeName);
         }
         moveOn();
+        return attributeName;
     }
 
-    private void parseTableName(String name) throws ParseException {
+    /** Drops the table name an attribute name may be qualified with. */
+    private static String getColumnName(String attributeName) {
+        int dotIndex = attributeName.indexOf('.');
+        if (dotIndex < 0) { return attributeName; }
+        return attributeName.split("\\.")[1];
+    }
+
+    private String parseTableName(String name) throws ParseException {
         parsePlainText(name);
+        return name.toLowerCase();
     }
 
-    private void parseCreateDatabase() throws ParseException {
+    private void parseCreateDatabase(CreateCMD createCmd) throws ParseException {
         moveOn();
-        parseDataBaseName();
+        createCmd.dbName = parseDataBaseName();
     }
 
-    private void parseDataBaseName() throws ParseException {
-        parsePlainText(tokens[currentIdx]);
+    private String parseDataBaseName() throws ParseException {
+        String dbName = text();
+        parsePlainText(dbName);
         moveOn();
+        return dbName;
     }
 
     private void parsePlainText(String text) throws ParseException {
         for (int i = 0; i < text.length(); i++) {
-            String subStr = text.substring(i, i + 1);
-            if (!isLetter(subStr) && !isDigit(subStr)) {
+            if (!CharClass.isPlainText(text.charAt(i))) {
                 throw new ParseException("Invalid plain text: " + text);
             }
         }
     }
-
-    private boolean isLetter(String letter) {
-        return isUppercase(letter) || isLowercase(letter);
-    }
-
-    private boolean isUppercase(String letter) {
-        String patternString = "^[A-Z]$";
-        Pattern pattern = Pattern.compile(patternString);
-        Matcher matcher = pattern.matcher(letter);
-        return matcher.find();
-    }
-
-    private boolean isLowercase(String letter) {
-        String patternString = "^[a-z]$";
-        Pattern pattern = Pattern.compile(patternString);
-        Matcher matcher = pattern.matcher(letter);
-        return matcher.find();
-    }
-
-    private boolean isDigit(String letter) {
-        String patternString = "^[0-9]$";
-        Pattern pattern = Pattern.compile(patternString);
-        Matcher matcher = pattern.matcher(letter);
-        return matcher.find();
-    }
-
-    public static Condition parseCondition(DBServer server, int currentIdx) {
-        String token = server.getTokens()[currentIdx];
-        Condition condition;
-        if (token.equals("(")) {
-            int endingIndex = findEndingParenthesis(server, currentIdx);
-            currentIdx++;
-            condition = parseCondition(server, currentIdx);
-            if (endingIndex + 1 == server.getTokens().length) { return condition; }
-            currentIdx = endingIndex + 1;
-        } else {
-            condition = formSingleCondition(server, currentIdx);
-            currentIdx+=3;
-        }
-        boolean isReachedParseEnd = server.getTokens().length <= currentIdx + 1;
-        if (isReachedParseEnd) { return condition; }
-        return formConditions(server, currentIdx, condition);
-    }
-
-    private static Condition formConditions(DBServer server, int currentIdx, Condition currentCondition) {
-        String token = server.getTokens()[currentIdx];
-        boolean isAndType = DBKeyWords.isTargetType(DBKeyWords.AND, token);
-        boolean isOrType = DBKeyWords.isTargetType(DBKeyWords.OR, token);
-        boolean isBooleanOperator = isAndType || isOrType;
-        if (!isBooleanOperator) { return currentCondition; }
-        currentIdx++;
-        Condition nextCondition = parseCondition(server, currentIdx);
-        return new Condition(currentCondition, token, nextCondition);
-    }
-
-    private static Condition formSingleCondition(DBServer server, int currentIdx) {
-        String attributeName = server.getTokens()[currentIdx];
-        currentIdx++;
-        String comparator = server.getTokens()[currentIdx];
-        currentIdx++;
-        String value = server.getTokens()[currentIdx];
-        return new Condition(attributeName, comparator, value);
-    }
-
-    private static int findEndingParenthesis(DBServer server, int currentIdx) {
-        int openParenthesis = 0;
-        while (currentIdx < server.getTokens().length) {
-            if (server.getTokens()[currentIdx].equals("(")) {
-                openParenthesis++;
-            } else if (server.getTokens()[currentIdx].equals(")")) {
-                openParenthesis--;
-            }
-            if (openParenthesis == 0) { return currentIdx; }
-            currentIdx++;
-        }
-        return -1;
-    }
 }
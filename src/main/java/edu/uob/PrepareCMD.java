@@ -0,0 +1,16 @@
+package edu.uob;
+
+public class PrepareCMD extends DBCmd {
+    protected String statementName;
+    protected DBCmd statement;
+
+    public PrepareCMD() {
+        super();
+    }
+
+    @Override
+    public String query(Session session) {
+        session.putPreparedStatement(statementName, statement);
+        return "[OK]";
+    }
+}
@@ -0,0 +1,60 @@
+package edu.uob;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import edu.uob.InterpretException.FailedCreatingFileException;
+
+/**
+ * Hands out the primary keys of a table from an atomic counter, reserving them in the config file a block at a time.
+ * Only a key past the reserved block writes the file, so inserts neither wait for each other to take keys
+ * nor rewrite the file on every row, and a key is never handed out before it is reserved on disk.
+ */
+public class PrimaryKeySequence {
+    public static final int BLOCK_SIZE = 128;
+
+    private final String tablePath;
+    private final AtomicInteger lastKey;
+    private volatile int reservedKey;
+
+    /** Starts after the given key, with the keys up to {@code reservedKey} already reserved; no path keeps keys in memory only. */
+    public PrimaryKeySequence(String tablePath, int lastKey, int reservedKey) {
+        this.tablePath = tablePath;
+        this.lastKey = new AtomicInteger(lastKey);
+        this.reservedKey = Math.max(lastKey, reservedKey);
+    }
+
+    /** Takes the given amount of consecutive keys and returns the first of them. */
+    public int nextKeys(int amount) throws FailedCreatingFileException {
+        int last = lastKey.addAndGet(amount);
+        if (last > reservedKey) {
+            reserve(last);
+        }
+        return last - amount + 1;
+    }
+
+    private synchronized void reserve(int key) throws FailedCreatingFileException {
+        if (key <= reservedKey) { return; }
+        int nextReservedKey = key + BLOCK_SIZE;
+        if (tablePath != null) {
+            try {
+                DBCmd.saveConfig(tablePath, nextReservedKey);
+            } catch (IOException e) {
+                throw new FailedCreatingFileException("config file");
+            }
+        }
+        reservedKey = nextReservedKey;
+    }
+
+    public int getLastKey() {
+        return lastKey.get();
+    }
+
+    /** Moves the counter back, which only the writer holding the table may do, e.g. to undo its rolled back inserts. */
+    public void setLastKey(int key) {
+        lastKey.set(key);
+    }
+
+    public int getReservedKey() {
+        return reservedKey;
+    }
+}
@@ -0,0 +1,51 @@
+package edu.uob;
+
+import java.util.List;
+
+/**
+ * What a command answers: a message, followed by the rows it read when it read any.
+ * Kept apart from how it is sent, so the text protocol formats it as tab separated lines
+ * and the binary protocol sends its rows as typed values.
+ */
+public class QueryResult {
+    private final String message;
+    private final List<String> titles;
+    private final List<List<String>> rows;
+
+    public QueryResult(String message) {
+        this(message, null, null);
+    }
+
+    public QueryResult(String message, List<String> titles, List<List<String>> rows) {
+        this.message = message;
+        this.titles = titles;
+        this.rows = rows;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean hasRows() {
+        return titles != null;
+    }
+
+    /** Returns the column titles, or null when the command read no rows. */
+    public List<String> getTitles() {
+        return titles;
+    }
+
+    public List<List<String>> getRows() {
+        return rows;
+    }
+
+    public boolean isError() {
+        return message.startsWith("[ERROR]");
+    }
+
+    /** Formats the result the way the text protocol sends it. */
+    @Override
+    public String toString() {
+        return hasRows() ? message + "\n" + Table.tableToString(titles, rows) : message;
+    }
+}
@@ -0,0 +1,120 @@
+package edu.uob;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import edu.uob.InterpretException.StringWithNoQuoteException;
+
+/**
+ * The rows of a SELECT declared as a cursor, handed out a batch at a time by FETCH.
+ * Rows are read from the snapshot pinned when the cursor was declared as they are fetched, so neither end holds more
+ * than one batch of a large result. The snapshot stays pinned, keeping the row versions it reads from being collected,
+ * until every row is fetched, the cursor is closed, its session ends, or it is left idle for {@link #IDLE_TIMEOUT_MILLIS}.
+ * Aggregates, DISTINCT and ORDER BY a column other than the primary key have to see every row before returning one,
+ * so those cursors hold their whole result from the start instead, and pin nothing once it is read.
+ */
+public final class ResultCursor {
+    public static final long IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000;
+    // Cursors still pinning a snapshot, which the version collector closes once they are idle for too long
+    private static final Set<ResultCursor> PINNING_CURSORS = ConcurrentHashMap.newKeySet();
+
+    private final List<String> titles;
+    private final SelectCMD select;
+    private final RowCursor rows;
+    private final int[] selectedIndexes;
+    private final boolean isReversed;
+    private final long timestamp;
+    private Iterator<List<String>> resultRows;
+    private int matchedAmount = 0;
+    private int fetchedAmount = 0;
+    private boolean isPinning;
+    private boolean isExhausted = false;
+    private boolean isClosed = false;
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+
+    /** Opens a cursor reading the rows of a pinned snapshot, which it unpins once done with it. */
+    protected ResultCursor(SelectCMD select, long timestamp, RowCursor rows, List<String> titles, int[] selectedIndexes,
+                           boolean isReversed) {
+        this.select = select;
+        this.timestamp = timestamp;
+        this.rows = rows;
+        this.titles = titles;
+        this.selectedIndexes = selectedIndexes;
+        this.isReversed = isReversed;
+        this.isPinning = select != null;
+        if (isPinning) { PINNING_CURSORS.add(this); }
+    }
+
+    /** Opens a cursor over rows already selected, for queries which have to see every row before returning one. */
+    protected ResultCursor(List<String> titles, List<List<String>> resultRows) {
+        this(null, CommitStamp.UNCOMMITTED, null, titles, null, false);
+        this.resultRows = resultRows.iterator();
+    }
+
+    /** Returns up to the given amount of the next rows, fewer only once every row has been fetched. */
+    public synchronized QueryResult fetch(int amount) throws StringWithNoQuoteException {
+        if (isClosed) {
+            return new QueryResult("[ERROR]: Cursor was closed after being idle for too long");
+        }
+        lastUsedMillis = System.currentTimeMillis();
+        List<List<String>> batch = new ArrayList<>();
+        if (resultRows != null) {
+            while (batch.size() < amount && resultRows.hasNext()) {
+                batch.add(resultRows.next());
+            }
+            return new QueryResult("[OK]: ", titles, batch);
+        }
+        while (batch.size() < amount && !isExhausted) {
+            if (isLimitReached() || !(isReversed ? rows.previous() : rows.next())) {
+                // No row is left to read, so the snapshot is let go without waiting for CLOSE
+                isExhausted = true;
+                unpin();
+                break;
+            }
+            if (select.condition != null && !select.isMatchConditions(select.condition, rows)) {
+                continue;
+            }
+            matchedAmount++;
+            if (matchedAmount <= select.offset) { continue; }
+            List<String> row = new ArrayList<>(selectedIndexes.length);
+            for (int columnIndex : selectedIndexes) {
+                row.add(rows.getValue(columnIndex));
+            }
+            batch.add(row);
+            fetchedAmount++;
+        }
+        return new QueryResult("[OK]: ", titles, batch);
+    }
+
+    private boolean isLimitReached() {
+        return select.limit >= 0 && fetchedAmount >= select.limit;
+    }
+
+    public synchronized void close() {
+        if (isClosed) { return; }
+        isClosed = true;
+        resultRows = null;
+        unpin();
+    }
+
+    private void unpin() {
+        if (!isPinning) { return; }
+        isPinning = false;
+        PINNING_CURSORS.remove(this);
+        VersionClock.unpin(timestamp);
+    }
+
+    /** Closes the cursors still pinning a snapshot which have not been fetched from for the given time. */
+    public static void closeIdleCursors(long idleMillis) {
+        long now = System.currentTimeMillis();
+        for (ResultCursor cursor : PINNING_CURSORS) {
+            cursor.closeIfIdle(now, idleMillis);
+        }
+    }
+
+    private synchronized void closeIfIdle(long now, long idleMillis) {
+        if (now - lastUsedMillis >= idleMillis) { close(); }
+    }
+}
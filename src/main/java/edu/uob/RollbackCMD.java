@@ -0,0 +1,18 @@
+package edu.uob;
+
+public class RollbackCMD extends DBCmd {
+    public RollbackCMD() {
+        super();
+    }
+
+    @Override
+    public String query(Session session) {
+        Transaction transaction = session.getTransaction();
+        if (transaction == null) {
+            return "[ERROR]: No transaction in progress";
+        }
+        session.setTransaction(null);
+        transaction.rollback();
+        return "[OK]";
+    }
+}
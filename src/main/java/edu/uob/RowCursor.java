@@ -0,0 +1,71 @@
+package edu.uob;
+
+import java.util.List;
+
+/**
+ * Read-only cursor over the rows of a table snapshot.
+ * Cells are read from the stored row versions in place, so scanning a table copies nothing,
+ * and rows deleted or written after the snapshot are skipped.
+ */
+public class RowCursor {
+    private final TableSnapshot snapshot;
+    private final RowSlot[] slots;
+    private final int slotAmount;
+    private final long timestamp;
+    private int slotIndex = -1;
+    private List<String> values;
+
+    protected RowCursor(TableSnapshot snapshot, RowSlot[] slots, int slotAmount, long timestamp) {
+        this.snapshot = snapshot;
+        this.slots = slots;
+        this.slotAmount = slotAmount;
+        this.timestamp = timestamp;
+    }
+
+    public boolean next() {
+        while (++slotIndex < slotAmount) {
+            values = slots[slotIndex].read(timestamp);
+            if (values != null) { return true; }
+        }
+        moveToEnd();
+        return false;
+    }
+
+    /** Moves back to the row before the current one, so rows can also be visited from the last one backwards. */
+    public boolean previous() {
+        while (--slotIndex >= 0) {
+            values = slots[slotIndex].read(timestamp);
+            if (values != null) { return true; }
+        }
+        reset();
+        return false;
+    }
+
+    /** Moves the cursor after the last row, where {@link #previous()} starts from. */
+    public void moveToEnd() {
+        slotIndex = slotAmount;
+        values = null;
+    }
+
+    public void reset() {
+        slotIndex = -1;
+        values = null;
+    }
+
+    /** Returns where the current row is stored in the table, which identifies it to updates and deletes. */
+    public int getRowIndex() {
+        return slotIndex;
+    }
+
+    public int getRowAmount() {
+        return snapshot.getRowCount();
+    }
+
+    public String getValue(int columnIndex) {
+        return values.get(columnIndex);
+    }
+
+    public int getColumnIdxByName(String columnName) {
+        return snapshot.getColumnIdxByName(columnName);
+    }
+}
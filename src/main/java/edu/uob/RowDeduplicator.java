@@ -0,0 +1,120 @@
+package edu.uob;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drops duplicated rows by hashing an encoding of every row.
+ * Once more distinct rows than the memory budget have been seen, rows are spread by their hash
+ * over partition files on disk, so each partition can then be deduplicated in memory on its own.
+ */
+public class RowDeduplicator implements AutoCloseable {
+    public static final int DEFAULT_MEMORY_BUDGET = 100000;
+    private static final int PARTITION_AMOUNT = 16;
+
+    private final int memoryBudget;
+    private final Map<String, String[]> distinctRows = new LinkedHashMap<>();
+    private List<SpillFile> partitions;
+    private List<BufferedWriter> partitionWriters;
+
+    public RowDeduplicator() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+
+    public RowDeduplicator(int memoryBudget) {
+        this.memoryBudget = Math.max(memoryBudget, 1);
+    }
+
+    public void add(String[] row) throws IOException {
+        if (isSpilled()) {
+            writeToPartition(encodeRow(row), row);
+            return;
+        }
+        distinctRows.putIfAbsent(encodeRow(row), row);
+        if (distinctRows.size() > memoryBudget) {
+            spill();
+        }
+    }
+
+    public boolean isSpilled() {
+        return partitions != null;
+    }
+
+    /** Returns the amount of distinct rows seen so far, which is only known until rows are spilled. */
+    public int getDistinctAmount() {
+        return distinctRows.size();
+    }
+
+    public List<String[]> getDistinctRows() throws IOException {
+        if (!isSpilled()) { return new ArrayList<>(distinctRows.values()); }
+        List<String[]> rows = new ArrayList<>();
+        try {
+            for (BufferedWriter writer : partitionWriters) {
+                writer.close();
+            }
+            for (SpillFile partition : partitions) {
+                Map<String, String[]> partitionRows = new LinkedHashMap<>();
+                try (BufferedReader reader = partition.openReader()) {
+                    String[] row;
+                    while ((row = SpillFile.readRow(reader)) != null) {
+                        partitionRows.putIfAbsent(encodeRow(row), row);
+                    }
+                }
+                rows.addAll(partitionRows.values());
+            }
+        } finally {
+            for (SpillFile partition : partitions) {
+                partition.delete();
+            }
+        }
+        return rows;
+    }
+
+    /** Deletes the partitions spilled so far, for rows given up before they were read back. */
+    @Override
+    public void close() throws IOException {
+        if (!isSpilled()) { return; }
+        try {
+            for (BufferedWriter writer : partitionWriters) {
+                writer.close();
+            }
+        } finally {
+            for (SpillFile partition : partitions) {
+                partition.delete();
+            }
+        }
+    }
+
+    private void spill() throws IOException {
+        partitions = new ArrayList<>();
+        partitionWriters = new ArrayList<>();
+        for (int i = 0; i < PARTITION_AMOUNT; i++) {
+            SpillFile partition = new SpillFile("distinct-partition");
+            partitions.add(partition);
+            partitionWriters.add(partition.openWriter());
+        }
+        for (Map.Entry<String, String[]> entry : distinctRows.entrySet()) {
+            writeToPartition(entry.getKey(), entry.getValue());
+        }
+        distinctRows.clear();
+    }
+
+    private void writeToPartition(String key, String[] row) throws IOException {
+        int partitionIndex = Math.floorMod(key.hashCode(), PARTITION_AMOUNT);
+        SpillFile.writeRow(partitionWriters.get(partitionIndex), row);
+    }
+
+    /** Prefixes every value with its length, so no two different rows share the same encoding. */
+    private static String encodeRow(String[] row) {
+        StringBuilder key = new StringBuilder();
+        for (String value : row) {
+            key.append(value.length()).append(':').append(value);
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package edu.uob;
+
+import java.util.List;
+
+/**
+ * One row of a table through time, newest version first.
+ * Versions are never changed once written: an update or a delete pushes a new version, a delete one without values,
+ * so a reader walks back to the newest version committed at or before its snapshot.
+ */
+public class RowSlot {
+    private volatile Version newest;
+
+    public RowSlot(List<String> values, CommitStamp stamp) {
+        newest = new Version(values, stamp, null);
+    }
+
+    /** Returns the values of the row at the given timestamp, or null when the row did not exist then. */
+    public List<String> read(long timestamp) {
+        for (Version version = newest; version != null; version = version.older) {
+            if (version.stamp.getTimestamp() <= timestamp) { return version.values; }
+        }
+        return null;
+    }
+
+    /** Returns the values last written, committed or not, which is what the writer holding the table sees. */
+    public List<String> readNewest() {
+        return newest.values;
+    }
+
+    /** Writes a new version of the row, deleting it when there are no values. */
+    public void write(List<String> values, CommitStamp stamp) {
+        newest = new Version(values, stamp, newest);
+    }
+
+    /** Drops the versions written under the given stamp, which was never committed. */
+    public void discard(CommitStamp stamp) {
+        while (newest.stamp == stamp && newest.older != null) {
+            newest = newest.older;
+        }
+    }
+
+    /**
+     * Drops the versions no reader at or after the given timestamp can see.
+     * Returns whether the row is deleted for every such reader, so its slot can go as well.
+     */
+    public boolean prune(long oldestTimestamp) {
+        for (Version version = newest; version != null; version = version.older) {
+            if (version.stamp.getTimestamp() <= oldestTimestamp) {
+                version.older = null;
+                return version == newest && version.values == null;
+            }
+        }
+        return false;
+    }
+
+    private static class Version {
+        private final List<String> values;
+        private final CommitStamp stamp;
+        private volatile Version older;
+
+        private Version(List<String> values, CommitStamp stamp, Version older) {
+            this.values = values;
+            this.stamp = stamp;
+            this.older = older;
+        }
+    }
+}
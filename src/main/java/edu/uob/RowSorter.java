@@ -0,0 +1,158 @@
+package edu.uob;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Orders rows by one of their columns.
+ * Rows are kept in a bounded heap when only the top rows are needed, sorted in memory while they
+ * fit in the memory budget, and otherwise spilled to disk as sorted runs which are merged at the end.
+ */
+public class RowSorter implements AutoCloseable {
+    public static final int DEFAULT_MEMORY_BUDGET = 100000;
+
+    private final Comparator<String[]> comparator;
+    private final int memoryBudget;
+    private final int offset;
+    private final int limit;
+    private final List<String[]> buffer = new ArrayList<>();
+    private final List<SpillFile> runs = new ArrayList<>();
+    private PriorityQueue<RankedRow> topRows;
+    private Comparator<RankedRow> rankedComparator;
+    private long addedAmount = 0;
+
+    public RowSorter(int keyIndex, boolean isDescending, int offset, int limit) {
+        this(keyIndex, isDescending, offset, limit, DEFAULT_MEMORY_BUDGET);
+    }
+
+    public RowSorter(int keyIndex, boolean isDescending, int offset, int limit, int memoryBudget) {
+        Comparator<String[]> ascending = (first, second) -> ValueType.compareValues(first[keyIndex], second[keyIndex]);
+        this.comparator = isDescending ? ascending.reversed() : ascending;
+        this.memoryBudget = Math.max(memoryBudget, 1);
+        this.offset = offset;
+        this.limit = limit;
+        if (limit >= 0 && (long) offset + limit <= this.memoryBudget) {
+            // Ties are broken by arrival order, so the heap agrees with the stable sort
+            rankedComparator = Comparator.comparing(RankedRow::row, comparator).thenComparingLong(RankedRow::sequence);
+            // Keep the worst of the kept rows on top, so it is the one evicted by a better row
+            topRows = new PriorityQueue<>(Math.max(offset + limit, 1), rankedComparator.reversed());
+        }
+    }
+
+    public void add(String[] row) throws IOException {
+        if (topRows != null) {
+            addToTopRows(row);
+            return;
+        }
+        buffer.add(row);
+        if (buffer.size() >= memoryBudget) {
+            spillBuffer();
+        }
+    }
+
+    private void addToTopRows(String[] row) {
+        int capacity = offset + limit;
+        if (capacity == 0) { return; }
+        RankedRow rankedRow = new RankedRow(row, addedAmount++);
+        if (topRows.size() < capacity) {
+            topRows.add(rankedRow);
+        } else if (rankedComparator.compare(rankedRow, topRows.peek()) < 0) {
+            topRows.poll();
+            topRows.add(rankedRow);
+        }
+    }
+
+    public List<String[]> getSortedRows() throws IOException {
+        if (topRows != null) {
+            List<RankedRow> rankedRows = new ArrayList<>(topRows);
+            rankedRows.sort(rankedComparator);
+            List<String[]> rows = new ArrayList<>();
+            for (RankedRow rankedRow : rankedRows) {
+                rows.add(rankedRow.row);
+            }
+            return getRowsInRange(rows);
+        }
+        if (runs.isEmpty()) {
+            // A stable sort keeps rows with equal keys in their stored order
+            buffer.sort(comparator);
+            return getRowsInRange(buffer);
+        }
+        spillBuffer();
+        return mergeRuns();
+    }
+
+    private List<String[]> getRowsInRange(List<String[]> rows) {
+        if (offset >= rows.size()) { return Collections.emptyList(); }
+        int end = limit < 0 ? rows.size() : (int) Math.min(rows.size(), (long) offset + limit);
+        return rows.subList(offset, end);
+    }
+
+    private void spillBuffer() throws IOException {
+        if (buffer.isEmpty()) { return; }
+        buffer.sort(comparator);
+        SpillFile run = new SpillFile("sort-run");
+        try (BufferedWriter writer = run.openWriter()) {
+            for (String[] row : buffer) {
+                SpillFile.writeRow(writer, row);
+            }
+        }
+        runs.add(run);
+        buffer.clear();
+    }
+
+    private List<String[]> mergeRuns() throws IOException {
+        List<BufferedReader> readers = new ArrayList<>();
+        PriorityQueue<RunHead> heads = new PriorityQueue<>((first, second) -> {
+            int order = comparator.compare(first.row, second.row);
+            return order != 0 ? order : Integer.compare(first.runIndex, second.runIndex);
+        });
+        List<String[]> rows = new ArrayList<>();
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                BufferedReader reader = runs.get(i).openReader();
+                readers.add(reader);
+                String[] row = SpillFile.readRow(reader);
+                if (row != null) { heads.add(new RunHead(row, i)); }
+            }
+            int skipped = 0;
+            while (!heads.isEmpty() && (limit < 0 || rows.size() < limit)) {
+                RunHead head = heads.poll();
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    rows.add(head.row);
+                }
+                String[] next = SpillFile.readRow(readers.get(head.runIndex));
+                if (next != null) { heads.add(new RunHead(next, head.runIndex)); }
+            }
+        } finally {
+            for (BufferedReader reader : readers) {
+                reader.close();
+            }
+            for (SpillFile run : runs) {
+                run.delete();
+            }
+            runs.clear();
+        }
+        return rows;
+    }
+
+    /** Deletes the runs spilled so far, for a sort given up before its rows were read back. */
+    @Override
+    public void close() {
+        for (SpillFile run : runs) {
+            run.delete();
+        }
+        runs.clear();
+    }
+
+    private record RankedRow(String[] row, long sequence) {}
+
+    private record RunHead(String[] row, int runIndex) {}
+}
@@ -1,100 +1,318 @@
 package edu.uob;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import edu.uob.InterpretException.StringWithNoQuoteException;
 import edu.uob.TableException.NoTableFoundException;
 import edu.uob.TableException.UsingReservedWordException;
 import edu.uob.TableException.NoColumnFoundException;
+import edu.uob.TableException.NotGroupedColumnException;
 
 public class SelectCMD extends DBCmd {
+    protected int limit = -1;
+    protected int offset = 0;
+    protected int limitParameter = -1;
+    protected int offsetParameter = -1;
+    protected String orderColumn;
+    protected boolean isDescending = false;
+    protected String groupColumn;
+    protected boolean isDistinct = false;
+    protected final List<AggregateFunction> aggregates = new ArrayList<>();
+
     public SelectCMD() {
         super();
-        tableNames = new ArrayList<>();
-        colNames = new ArrayList<>();
-        currentIdx = 1;
     }
 
     @Override
-    public String query(DBServer server) {
+    protected DBCmd bind(List<Token> parameters) throws ParseException {
+        checkParameterAmount(parameters);
+        if (parameterAmount == 0) { return this; }
+        SelectCMD selectCmd = new SelectCMD();
+        selectCmd.tableNames = tableNames;
+        selectCmd.colNames = colNames;
+        selectCmd.aggregates.addAll(aggregates);
+        selectCmd.isDistinct = isDistinct;
+        selectCmd.groupColumn = groupColumn;
+        selectCmd.orderColumn = orderColumn;
+        selectCmd.isDescending = isDescending;
+        selectCmd.condition = condition == null ? null : condition.bind(parameters);
+        selectCmd.limit = limitParameter < 0 ? limit : bindRowAmount(parameters.get(limitParameter));
+        selectCmd.offset = offsetParameter < 0 ? offset : bindRowAmount(parameters.get(offsetParameter));
+        return selectCmd;
+    }
+
+    @Override
+    public String query(Session session) {
+        return execute(session).toString();
+    }
+
+    @Override
+    protected QueryResult execute(Session session) {
         try {
-            queryWildAttribList(server);
-            queryTableName(server);
-            Table table = server.getDB().getTableByName(tableNames.get(0));
-            if (colNames.get(0).equals("*")) {
-                colNames = new ArrayList<>(Arrays.asList(table.getColumnNames()));
-            } else {
-                colNames = table.getRawTitlesByTitles(colNames.toArray(new String[0]));
-            }
-            String result;
-            if (!DBKeyWords.isTargetType(DBKeyWords.WHERE, server.getTokens()[currentIdx])) {
-                result = getDataValue(table);
-                return "[OK]: \n" + result;
-            }
-            currentIdx++;
-            List<List<String>> dataValues = queryCondition(server, currentIdx, table);
-            result = Table.tableToString(colNames, dataValues);
-            return "[OK]: \n" + result;
-        } catch (NoTableFoundException | NoColumnFoundException | StringWithNoQuoteException | UsingReservedWordException e) {
-            return "[ERROR]: Failed getting data from table--" + e.getMessage();
+            checkTableNames();
+            Table table = session.getDB().getTableByName(tableNames.get(0));
+            return readTables(session, List.of(table), snapshots -> queryTable(snapshots.get(0)));
+        } catch (NoTableFoundException | NoColumnFoundException | NotGroupedColumnException |
+                 StringWithNoQuoteException | UsingReservedWordException e) {
+            return new QueryResult("[ERROR]: Failed getting data from table--" + e.getMessage());
+        } catch (IOException e) {
+            return new QueryResult("[ERROR]: Failed sorting data--" + e.getMessage());
         } catch (Exception e) {
-            return "[ERROR]: Failed getting data";
+            return new QueryResult("[ERROR]: Failed getting data");
         }
     }
 
-    private List<List<String>> queryCondition(DBServer server, int index, Table table) throws NoColumnFoundException, StringWithNoQuoteException {
-        String[] rawTitles = table.getTitles();
-        List<List<String>> dataValues = table.getDataValuesByColumns(colNames);
-        String[][] rawDataValues = table.getDataValues();
-        Condition condition = Parser.parseCondition(server, index);
+    /**
+     * Opens a cursor over the selected rows.
+     * Rows in stored or primary key order are read from a pinned snapshot as they are fetched, while rows that have to be
+     * sorted, grouped or deduplicated are selected in full first.
+     */
+    protected ResultCursor openCursor(Session session) throws Exception {
+        checkTableNames();
+        Table table = session.getDB().getTableByName(tableNames.get(0));
+        boolean isInPrimaryKeyOrder = orderColumn == null || orderColumn.equalsIgnoreCase(table.getPk());
+        // These see every row before returning one, so the result is read whole and no snapshot stays pinned
+        if (isAggregation() || isDistinct || !isInPrimaryKeyOrder) {
+            QueryResult result = readTables(session, List.of(table), snapshots -> queryTable(snapshots.get(0)));
+            return new ResultCursor(result.getTitles(), result.getRows());
+        }
+        long timestamp = VersionClock.pin();
+        try {
+            TableSnapshot snapshot = getReadSnapshot(session, table, timestamp);
+            List<String> titles = getSelectedTitles(snapshot);
+            int[] selectedIndexes = getSelectedIndexes(snapshot, titles);
+            RowCursor rows = snapshot.openCursor();
+            boolean isReversed = orderColumn != null && isDescending;
+            if (isReversed) { rows.moveToEnd(); }
+            return new ResultCursor(this, timestamp, rows, titles, selectedIndexes, isReversed);
+        } catch (Exception e) {
+            VersionClock.unpin(timestamp);
+            throw e;
+        }
+    }
+
+    private QueryResult queryTable(TableSnapshot table) throws TableException, StringWithNoQuoteException, IOException {
+        if (isAggregation()) {
+            return queryAggregation(table);
+        }
+        List<String> titles = getSelectedTitles(table);
+        List<List<String>> dataValues = isDistinct ? queryDistinctValues(table, titles) : queryDataValues(table, titles);
+        return new QueryResult("[OK]: ", titles, dataValues);
+    }
+
+    private List<String> getSelectedTitles(TableSnapshot table) throws NoColumnFoundException, UsingReservedWordException {
+        if (colNames.get(0).equals("*")) {
+            return new ArrayList<>(Arrays.asList(table.getColumnNames()));
+        }
+        return table.getRawTitlesByTitles(colNames.toArray(new String[0]));
+    }
+
+    private List<List<String>> queryDataValues(TableSnapshot table, List<String> titles) throws NoColumnFoundException, StringWithNoQuoteException, IOException {
+        if (orderColumn == null) {
+            if (condition == null) { return table.getDataValuesByColumns(titles, offset, limit); }
+            return queryCondition(table, titles, false);
+        }
+        int orderIndex = table.getColumnIdxByName(orderColumn);
+        if (orderIndex < 0) { throw new NoColumnFoundException(orderColumn); }
+        // Rows are stored in ascending primary key order, which serves as an index to read them in order
+        if (table.getPk().equalsIgnoreCase(orderColumn)) {
+            if (condition == null && !isDescending) { return table.getDataValuesByColumns(titles, offset, limit); }
+            return queryCondition(table, titles, isDescending);
+        }
+        return querySortedCondition(table, titles, orderIndex);
+    }
+
+    private List<List<String>> queryCondition(TableSnapshot table, List<String> titles, boolean isReversed) throws NoColumnFoundException, StringWithNoQuoteException {
+        int[] selectedIndexes = getSelectedIndexes(table, titles);
+        RowCursor cursor = table.openCursor();
+        if (isReversed) { cursor.moveToEnd(); }
         List<List<String>> newDataValues = new ArrayList<>();
-        for (int i = 0; i < dataValues.size(); i++) {
-            if (!isMatchConditions(condition, rawTitles, rawDataValues[i])) {
+        int matchedAmount = 0;
+        while (!isLimitReached(newDataValues) && (isReversed ? cursor.previous() : cursor.next())) {
+            if (condition != null && !isMatchConditions(condition, cursor)) {
                 continue;
             }
-            newDataValues.add(dataValues.get(i));
+            matchedAmount++;
+            if (matchedAmount <= offset) { continue; }
+            newDataValues.add(Arrays.asList(readRow(cursor, selectedIndexes)));
         }
         return newDataValues;
     }
 
-    private void queryWildAttribList(DBServer server) {
-        String token = server.getTokens()[currentIdx];
-        if (token.equals("*")) {
-            colNames.add("*");
-            currentIdx += 2;
-            return;
+    private List<List<String>> querySortedCondition(TableSnapshot table, List<String> titles, int orderIndex) throws NoColumnFoundException, StringWithNoQuoteException, IOException {
+        int[] selectedIndexes = getSelectedIndexes(table, titles);
+        // The sort key is read after the selected columns and dropped once rows are in order
+        int[] readIndexes = Arrays.copyOf(selectedIndexes, selectedIndexes.length + 1);
+        readIndexes[selectedIndexes.length] = orderIndex;
+        try (RowSorter sorter = new RowSorter(selectedIndexes.length, isDescending, offset, limit)) {
+            RowCursor cursor = table.openCursor();
+            while (cursor.next()) {
+                if (condition != null && !isMatchConditions(condition, cursor)) {
+                    continue;
+                }
+                sorter.add(readRow(cursor, readIndexes));
+            }
+            List<List<String>> newDataValues = new ArrayList<>();
+            for (String[] row : sorter.getSortedRows()) {
+                newDataValues.add(Arrays.asList(row).subList(0, selectedIndexes.length));
+            }
+            return newDataValues;
+        }
+    }
+
+    /** Reads the given columns of the current row, a negative index reading no value. */
+    private String[] readRow(RowCursor cursor, int[] columnIndexes) {
+        String[] row = new String[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            row[i] = columnIndexes[i] < 0 ? null : cursor.getValue(columnIndexes[i]);
+        }
+        return row;
+    }
+
+    private boolean isAggregation() {
+        return groupColumn != null || aggregates.stream().anyMatch(aggregate -> aggregate != null);
+    }
+
+    private QueryResult queryAggregation(TableSnapshot table) throws NoColumnFoundException, NotGroupedColumnException, StringWithNoQuoteException, IOException {
+        String[] rawTitles = table.getTitles();
+        int groupIndex = -1;
+        if (groupColumn != null) {
+            groupIndex = table.getColumnIdxByName(groupColumn);
+            if (groupIndex < 0) { throw new NoColumnFoundException(groupColumn); }
+        }
+        List<String> titles = new ArrayList<>();
+        int[] columnIndexes = new int[colNames.size()];
+        for (int i = 0; i < colNames.size(); i++) {
+            String colName = colNames.get(i);
+            AggregateFunction aggregate = aggregates.get(i);
+            if (aggregate == null) {
+                if (groupColumn == null || !colName.equalsIgnoreCase(groupColumn)) {
+                    throw new NotGroupedColumnException(colName);
+                }
+                columnIndexes[i] = groupIndex;
+                titles.add(rawTitles[groupIndex]);
+                continue;
+            }
+            columnIndexes[i] = colName.equals("*") ? -1 : table.getColumnIdxByName(colName);
+            if (!colName.equals("*") && columnIndexes[i] < 0) { throw new NoColumnFoundException(colName); }
+            titles.add(aggregate + "(" + (columnIndexes[i] < 0 ? "*" : rawTitles[columnIndexes[i]]) + ")");
+        }
+        if (condition == null && isAnsweredByStatistics()) {
+            List<List<String>> dataValues = new ArrayList<>();
+            dataValues.add(queryStatistics(table, columnIndexes));
+            return new QueryResult("[OK]: ", titles, offset > 0 || limit == 0 ? new ArrayList<>() : dataValues);
+        }
+        // Each read row holds the value of every output column, followed by the group value
+        int[] readIndexes = Arrays.copyOf(columnIndexes, columnIndexes.length + 1);
+        readIndexes[columnIndexes.length] = groupIndex;
+        int[] aggregatedIndexes = new int[columnIndexes.length];
+        for (int i = 0; i < aggregatedIndexes.length; i++) {
+            aggregatedIndexes[i] = columnIndexes[i] < 0 ? -1 : i;
+        }
+        List<String[]> rows = new ArrayList<>();
+        RowCursor cursor = table.openCursor();
+        while (cursor.next()) {
+            if (condition != null && !isMatchConditions(condition, cursor)) {
+                continue;
+            }
+            rows.add(readRow(cursor, readIndexes));
+        }
+        int aggregatedGroupIndex = groupIndex < 0 ? -1 : columnIndexes.length;
+        List<String[]> results = new HashAggregator(aggregatedGroupIndex, aggregates, aggregatedIndexes).aggregate(rows);
+        if (isDistinct) {
+            try (RowDeduplicator deduplicator = new RowDeduplicator()) {
+                for (String[] result : results) {
+                    deduplicator.add(result);
+                }
+                results = deduplicator.getDistinctRows();
+            }
+        }
+        return new QueryResult("[OK]: ", titles, orderResultRows(titles, results));
+    }
+
+    private boolean isAnsweredByStatistics() {
+        if (groupColumn != null || orderColumn != null) { return false; }
+        for (AggregateFunction aggregate : aggregates) {
+            boolean isCount = aggregate == AggregateFunction.COUNT;
+            if (!isCount && aggregate != AggregateFunction.MIN && aggregate != AggregateFunction.MAX) { return false; }
+        }
+        return true;
+    }
+
+    private List<String> queryStatistics(TableSnapshot table, int[] columnIndexes) {
+        List<String> row = new ArrayList<>();
+        for (int i = 0; i < aggregates.size(); i++) {
+            if (columnIndexes[i] < 0) {
+                row.add(Integer.toString(table.getRowCount()));
+                continue;
+            }
+            ColumnStatistics columnStatistics = table.getColumnStatistics(columnIndexes[i]);
+            switch (aggregates.get(i)) {
+                case COUNT -> row.add(Integer.toString(table.getRowCount() - columnStatistics.getNullCount()));
+                case MIN -> row.add(columnStatistics.getMin());
+                default -> row.add(columnStatistics.getMax());
+            }
+        }
+        return row;
+    }
+
+    private List<List<String>> queryDistinctValues(TableSnapshot table, List<String> titles) throws NoColumnFoundException, StringWithNoQuoteException, IOException {
+        int[] selectedIndexes = getSelectedIndexes(table, titles);
+        List<String[]> distinctRows;
+        try (RowDeduplicator deduplicator = new RowDeduplicator()) {
+            RowCursor cursor = table.openCursor();
+            while (cursor.next()) {
+                boolean isEnough = orderColumn == null && limit >= 0 && !deduplicator.isSpilled();
+                if (isEnough && deduplicator.getDistinctAmount() >= (long) offset + limit) { break; }
+                if (condition != null && !isMatchConditions(condition, cursor)) {
+                    continue;
+                }
+                deduplicator.add(readRow(cursor, selectedIndexes));
+            }
+            distinctRows = deduplicator.getDistinctRows();
         }
-        queryAttributeList(server);
+        return orderResultRows(titles, distinctRows);
     }
 
-    private void queryAttributeList(DBServer server) {
-        queryAttributeName(server);
-        if (!server.getTokens()[currentIdx].equals(",")) {
-            currentIdx++;
-            return;
+    private List<List<String>> orderResultRows(List<String> titles, List<String[]> results) throws NoColumnFoundException, IOException {
+        int orderIndex = -1;
+        if (orderColumn != null) {
+            for (int i = 0; i < titles.size() && orderIndex < 0; i++) {
+                boolean isPlainColumn = i >= aggregates.size() || aggregates.get(i) == null;
+                if (isPlainColumn && titles.get(i).equalsIgnoreCase(orderColumn)) { orderIndex = i; }
+            }
+            if (orderIndex < 0) { throw new NoColumnFoundException(orderColumn); }
+        }
+        List<List<String>> dataValues = new ArrayList<>();
+        try (RowSorter sorter = new RowSorter(Math.max(orderIndex, 0), isDescending, offset, limit)) {
+            int rowIndex = 0;
+            for (String[] result : results) {
+                if (orderIndex >= 0) {
+                    sorter.add(result);
+                } else if (rowIndex++ >= offset && !isLimitReached(dataValues)) {
+                    dataValues.add(Arrays.asList(result));
+                }
+            }
+            if (orderIndex < 0) { return dataValues; }
+            for (String[] result : sorter.getSortedRows()) {
+                dataValues.add(Arrays.asList(result));
+            }
         }
-        currentIdx++;
-        queryAttributeList(server);
+        return dataValues;
     }
 
-    private void queryAttributeName(DBServer server) {
-        String token = server.getTokens()[currentIdx];
-        String patternString = "\\.";
-        Pattern pattern = Pattern.compile(patternString);
-        Matcher matcher = pattern.matcher(token);
-        if (matcher.find()) {
-            String[] texts = token.split("\\.");
-            colNames.add(texts[1]);
-        } else {
-            colNames.add(token);
+    private int[] getSelectedIndexes(TableSnapshot table, List<String> titles) throws NoColumnFoundException {
+        int[] selectedIndexes = new int[titles.size()];
+        for (int i = 0; i < titles.size(); i++) {
+            selectedIndexes[i] = table.getColumnIdxByName(titles.get(i));
+            if (selectedIndexes[i] < 0) { throw new NoColumnFoundException(titles.get(i)); }
         }
-        currentIdx++;
+        return selectedIndexes;
     }
 
-    private String getDataValue(Table table) throws NoColumnFoundException {
-        return Table.tableToString(colNames, table.getDataValuesByColumns(colNames));
+    private boolean isLimitReached(List<List<String>> dataValues) {
+        return limit >= 0 && dataValues.size() >= limit;
     }
 }
@@ -0,0 +1,284 @@
+package edu.uob;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves connections with one selector thread, which reads and writes every socket without blocking,
+ * and virtual threads running the commands read, as in the blocking listener.
+ * An idle connection costs only its buffers, so thousands of connections are held on a handful of threads,
+ * and a command waiting for a table lock parks only its own virtual thread rather than a worker others need.
+ * Requests are framed by newlines and responses by the end of transmission marker, as in the blocking listener.
+ * Clients may pipeline requests: reading goes on while earlier commands run, until too many commands are queued.
+ * A line longer than any command is answered with an error and its connection closed, rather than buffered without end.
+ * A client closing its side is still answered every command it sent before the connection is closed.
+ */
+public class SelectorServer {
+    private static final char END_OF_TRANSMISSION = 4;
+    private static final ServerLog LOG = ServerLog.getDefault();
+    private static final int READ_BUFFER_SIZE = 8192;
+    protected static final int MAX_QUEUED_COMMANDS = 64;
+    protected static final int MAX_LINE_LENGTH = 4 * 1024 * 1024;
+
+    private final DBServer server;
+    // Connections with responses to write or reading to resume, handed from the workers to the selector thread
+    private final Queue<Connection> changedConnections = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private int connectionAmount = 0;
+
+    public SelectorServer(DBServer server) {
+        this.server = server;
+    }
+
+    /** Accepts and serves connections until interrupted. */
+    public void listenOn(int portNumber) throws IOException {
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        try (Selector openedSelector = Selector.open();
+             ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            selector = openedSelector;
+            serverChannel.bind(new InetSocketAddress(portNumber));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            LOG.info("listening", "port", portNumber, "mode", "selector");
+            try {
+                while (!Thread.interrupted()) {
+                    selector.select();
+                    updateInterests();
+                    handleSelectedKeys(workers);
+                }
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection connection) { connection.close(); }
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void handleSelectedKeys(ExecutorService workers) {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) { continue; }
+            try {
+                if (key.isAcceptable()) {
+                    acceptConnection((ServerSocketChannel) key.channel());
+                    continue;
+                }
+                if (key.isReadable()) { readCommands(key, workers); }
+                if (key.isValid() && key.isWritable()) { writeResponses(key); }
+            } catch (IOException e) {
+                LOG.warn("connection_failed", "error", e.getMessage());
+                closeConnection(key);
+            }
+        }
+    }
+
+    private void acceptConnection(ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) { return; }
+        if (connectionAmount >= server.getMaxConnections()) {
+            rejectConnection(channel);
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(channel, server.openSession()));
+        connectionAmount++;
+        LOG.info("connection_established", "address", channel.getRemoteAddress());
+    }
+
+    /** Tells the client it was turned away, the message being small enough for the socket to take at once. */
+    private void rejectConnection(SocketChannel channel) throws IOException {
+        try (channel) {
+            String message = "[ERROR]: Too many connections, at most " + server.getMaxConnections() + " clients can be connected";
+            channel.write(encodeResponse(message));
+        }
+    }
+
+    /** Reads what the socket has, handing every complete line to the workers as a command. */
+    private void readCommands(SelectionKey key, ExecutorService workers) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer buffer = connection.readBuffer;
+        if (connection.channel.read(buffer) < 0) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            connection.finish(null);
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            byte nextByte = buffer.get();
+            if (nextByte != '\n') {
+                if (connection.partialLine.size() >= MAX_LINE_LENGTH) {
+                    rejectLine(key, connection);
+                    return;
+                }
+                connection.partialLine.write(nextByte);
+                continue;
+            }
+            // Lines are decoded whole, so a character split over two reads is never cut in half
+            String command = connection.partialLine.toString(StandardCharsets.UTF_8);
+            connection.partialLine.reset();
+            connection.submit(command.endsWith("\r") ? command.substring(0, command.length() - 1) : command, workers);
+        }
+        buffer.clear();
+        synchronized (connection) {
+            // A client sending faster than its commands run is not read from until the workers catch up
+            if (connection.commands.size() >= MAX_QUEUED_COMMANDS) {
+                connection.isReadPaused = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    /** Stops reading from a client sending an overlong line, which is told so once its earlier commands are answered. */
+    private void rejectLine(SelectionKey key, Connection connection) {
+        LOG.warn("line_too_long", "max_length", MAX_LINE_LENGTH);
+        connection.readBuffer.clear();
+        connection.partialLine.reset();
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        connection.finish(encodeResponse("[ERROR]: Command is longer than " + MAX_LINE_LENGTH + " bytes"));
+    }
+
+    private void writeResponses(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        synchronized (connection) {
+            while (!connection.responses.isEmpty()) {
+                ByteBuffer response = connection.responses.peek();
+                connection.channel.write(response);
+                if (response.hasRemaining()) { return; }
+                connection.responses.poll();
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (!connection.isLastResponseQueued) { return; }
+        }
+        closeConnection(key);
+    }
+
+    /**
+     * Watches the connections the workers have changed for writability when they have responses or are to be closed,
+     * and for reads unless paused.
+     */
+    private void updateInterests() {
+        Connection connection;
+        while ((connection = changedConnections.poll()) != null) {
+            SelectionKey key = connection.channel.keyFor(selector);
+            if (key == null || !key.isValid()) { continue; }
+            synchronized (connection) {
+                int interests = connection.isReadPaused ? 0 : SelectionKey.OP_READ;
+                boolean isWriting = !connection.responses.isEmpty() || connection.isLastResponseQueued;
+                key.interestOps(isWriting ? interests | SelectionKey.OP_WRITE : interests);
+            }
+        }
+    }
+
+    private void closeConnection(SelectionKey key) {
+        key.cancel();
+        if (key.attachment() instanceof Connection connection) {
+            connectionAmount--;
+            connection.close();
+        }
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            LOG.warn("connection_close_failed", "error", e.getMessage());
+        }
+    }
+
+    private static ByteBuffer encodeResponse(String result) {
+        return ByteBuffer.wrap((result + "\n" + END_OF_TRANSMISSION + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A client connection with its session, the commands read but not yet run and the responses not yet written.
+     * Commands of one connection run one after the other, in the order they were read, on a virtual thread of its own.
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private final Session session;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+        private final Deque<String> commands = new ArrayDeque<>();
+        private final Deque<ByteBuffer> responses = new ArrayDeque<>();
+        private boolean isRunning = false;
+        private boolean isClosed = false;
+        private boolean isReadPaused = false;
+        private boolean isFinishing = false;
+        private ByteBuffer lastResponse;
+        private boolean isLastResponseQueued = false;
+
+        private Connection(SocketChannel channel, Session session) {
+            this.channel = channel;
+            this.session = session;
+        }
+
+        private synchronized void submit(String command, ExecutorService workers) {
+            commands.add(command);
+            if (isRunning) { return; }
+            isRunning = true;
+            workers.execute(this::runCommands);
+        }
+
+        private void runCommands() {
+            while (true) {
+                String command;
+                synchronized (this) {
+                    command = commands.poll();
+                    if (command == null || isClosed) {
+                        isRunning = false;
+                        if (isFinishing && !isClosed) { queueLastResponse(); }
+                        if (isClosed) { session.close(); }
+                        return;
+                    }
+                }
+                LOG.sample(ServerLog.Level.INFO, "command_received", "command", command);
+                ByteBuffer response = encodeResponse(server.handleCommand(command, session));
+                synchronized (this) {
+                    responses.add(response);
+                    if (isReadPaused && !isFinishing && commands.size() < MAX_QUEUED_COMMANDS / 2) { isReadPaused = false; }
+                }
+                changedConnections.add(this);
+                selector.wakeup();
+            }
+        }
+
+        /**
+         * Stops reading commands, answering those already read, then the given response unless null,
+         * before closing the connection.
+         */
+        private synchronized void finish(ByteBuffer response) {
+            isFinishing = true;
+            isReadPaused = true;
+            lastResponse = response;
+            if (!isRunning) { queueLastResponse(); }
+        }
+
+        private void queueLastResponse() {
+            if (lastResponse != null) { responses.add(lastResponse); }
+            isLastResponseQueued = true;
+            changedConnections.add(this);
+            selector.wakeup();
+        }
+
+        /** Closes the session now, or once the command running on it is done. */
+        private synchronized void close() {
+            isClosed = true;
+            if (!isRunning) { session.close(); }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package edu.uob;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous structured log of the server, written as one line of key=value fields per event.
+ * Threads logging an event only claim a slot of a bounded ring buffer without taking any lock, and a background thread
+ * formats and writes the claimed slots in batches, so logging never blocks a command on the output stream.
+ * Events arriving while the ring is full are dropped rather than waited for, and counted in a line of their own.
+ * The writer sleeps while the ring is empty and is woken by the next event logged, so an idle server does no work.
+ */
+public final class ServerLog {
+    public static final int DEFAULT_CAPACITY = 8192;
+    // Only bounds how late dropped events are reported while nothing else is logged
+    private static final long IDLE_PARK_NANOS = 1_000_000_000;
+    private static final ServerLog DEFAULT = new ServerLog(System.out, Level.INFO, DEFAULT_CAPACITY);
+
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARN,
+        ERROR
+    }
+
+    private final PrintStream out;
+    private final Entry[] entries;
+    // A slot is free for the producer at position p while its sequence is p, and readable while it is p + 1
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+    private volatile long writtenPosition = 0;
+    private final Object writtenSignal = new Object();
+    private final Thread writer;
+    private volatile boolean isWriterParked = false;
+    private final LongAdder droppedAmount = new LongAdder();
+    private long reportedDroppedAmount = 0;
+    private volatile Level level;
+    private volatile int sampleRate = 1;
+
+    /** Logs to the stream from a background thread, through a ring of the capacity rounded up to a power of two. */
+    public ServerLog(PrintStream out, Level level, int capacity) {
+        this.out = out;
+        this.level = level;
+        int slotAmount = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.entries = new Entry[slotAmount];
+        this.sequences = new AtomicLongArray(slotAmount);
+        this.mask = slotAmount - 1;
+        for (int i = 0; i < slotAmount; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+        writer = new Thread(this::writeEntries, "server-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Returns the log the server writes to standard output. */
+    public static ServerLog getDefault() {
+        return DEFAULT;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(this.level) >= 0;
+    }
+
+    /** Sets how many of the events logged through {@link #sample} stand for one written event. */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(sampleRate, 1);
+    }
+
+    public long getDroppedAmount() {
+        return droppedAmount.sum();
+    }
+
+    public void debug(String event, Object... fields) {
+        log(Level.DEBUG, event, fields);
+    }
+
+    public void info(String event, Object... fields) {
+        log(Level.INFO, event, fields);
+    }
+
+    public void warn(String event, Object... fields) {
+        log(Level.WARN, event, fields);
+    }
+
+    public void error(String event, Object... fields) {
+        log(Level.ERROR, event, fields);
+    }
+
+    /**
+     * Logs a frequent event, such as every received command, only about once in every sample rate calls.
+     * Events are picked at random rather than by a shared counter, so busy threads do not contend on it.
+     */
+    public void sample(Level level, String event, Object... fields) {
+        int rate = sampleRate;
+        if (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0) { return; }
+        log(level, event, fields);
+    }
+
+    /** Queues the event with its fields, given as alternating keys and values, which are formatted once written. */
+    public void log(Level level, String event, Object... fields) {
+        if (!isEnabled(level)) { return; }
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries[index].set(System.currentTimeMillis(), level, event, fields);
+                    sequences.set(index, position + 1);
+                    if (isWriterParked) { LockSupport.unpark(writer); }
+                    return;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                // The slot still holds an event from a lap ago, so the ring is full
+                droppedAmount.increment();
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /** Waits until every event logged so far has been written out, or the waiting thread is interrupted. */
+    public void flush() {
+        long position = tail.get();
+        synchronized (writtenSignal) {
+            while (writtenPosition < position) {
+                try {
+                    writtenSignal.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void writeEntries() {
+        StringBuilder batch = new StringBuilder();
+        while (true) {
+            long position = head;
+            int index = (int) (position & mask);
+            if (sequences.get(index) == position + 1) {
+                entries[index].appendTo(batch);
+                entries[index].clear();
+                sequences.set(index, position + mask + 1);
+                head = position + 1;
+                continue;
+            }
+            appendDroppedAmount(batch);
+            if (!batch.isEmpty()) {
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+            }
+            synchronized (writtenSignal) {
+                writtenPosition = position;
+                writtenSignal.notifyAll();
+            }
+            isWriterParked = true;
+            // An event published before the flag was raised would not unpark the writer, so the slot is checked again
+            if (sequences.get(index) != position + 1) { LockSupport.parkNanos(this, IDLE_PARK_NANOS); }
+            isWriterParked = false;
+        }
+    }
+
+    private void appendDroppedAmount(StringBuilder batch) {
+        long dropped = droppedAmount.sum();
+        if (dropped == reportedDroppedAmount) { return; }
+        Entry entry = new Entry();
+        entry.set(System.currentTimeMillis(), Level.WARN, "log_dropped", new Object[] {"amount", dropped - reportedDroppedAmount});
+        entry.appendTo(batch);
+        reportedDroppedAmount = dropped;
+    }
+
+    /** A slot of the ring, reused for every event passing through it. */
+    private static class Entry {
+        private long time;
+        private Level level;
+        private String event;
+        private Object[] fields;
+
+        private void set(long time, Level level, String event, Object[] fields) {
+            this.time = time;
+            this.level = level;
+            this.event = event;
+            this.fields = fields;
+        }
+
+        private void clear() {
+            event = null;
+            fields = null;
+        }
+
+        private void appendTo(StringBuilder line) {
+            line.append(Instant.ofEpochMilli(time)).append(' ').append(level).append(' ').append(event);
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                line.append(' ').append(fields[i]).append('=');
+                appendValue(line, String.valueOf(fields[i + 1]));
+            }
+            line.append('\n');
+        }
+
+        /** Quotes values holding spaces, quotes or line breaks, so every event stays on one parsable line. */
+        private static void appendValue(StringBuilder line, String value) {
+            boolean isPlain = !value.isEmpty() && value.chars().noneMatch(c -> c == ' ' || c == '"' || c == '\n' || c == '\r' || c == '\t');
+            if (isPlain) {
+                line.append(value);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> line.append("\\\"");
+                    case '\\' -> line.append("\\\\");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    case '\t' -> line.append("\\t");
+                    default -> line.append(c);
+                }
+            }
+            line.append('"');
+        }
+    }
+}
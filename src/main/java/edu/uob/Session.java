@@ -0,0 +1,98 @@
+package edu.uob;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * State of one client connection: the database it is using, the statements it has prepared, the cursors it has
+ * declared and its open transaction.
+ * Commands read and change this state through the session they run in, so clients never see each other's.
+ * The database itself is shared with the other sessions using it through the catalog of the server.
+ */
+public class Session {
+    private final String storageFolderPath;
+    private final Catalog catalog;
+    private Database database;
+    private final Map<String, DBCmd> preparedStatements = new HashMap<>();
+    private final Map<String, ResultCursor> cursors = new HashMap<>();
+    private Transaction transaction;
+
+    public Session(String storageFolderPath, Catalog catalog) {
+        this.storageFolderPath = storageFolderPath;
+        this.catalog = catalog;
+    }
+
+    public String getStorageFolderPath() {
+        return storageFolderPath;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    /** Switches to a database acquired from the catalog, releasing the one used so far. */
+    public void setDB(Database database) {
+        if (this.database != null) {
+            catalog.release(this.database);
+        }
+        this.database = database;
+    }
+
+    public Database getDB() {
+        if (database != null && database.isDropped()) {
+            database = null;
+        }
+        return database;
+    }
+
+    public void resetDB() {
+        setDB(null);
+    }
+
+    /** Lets go of everything the session holds, once its connection is closed. */
+    public void close() {
+        if (transaction != null) {
+            transaction.rollback();
+            transaction = null;
+        }
+        resetDB();
+        preparedStatements.clear();
+        for (ResultCursor cursor : cursors.values()) {
+            cursor.close();
+        }
+        cursors.clear();
+    }
+
+    /** Returns the transaction begun and not yet ended, or null when every command commits on its own. */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    public void putPreparedStatement(String name, DBCmd statement) {
+        preparedStatements.put(name, statement);
+    }
+
+    public DBCmd getPreparedStatement(String name) {
+        return preparedStatements.get(name);
+    }
+
+    public DBCmd removePreparedStatement(String name) {
+        return preparedStatements.remove(name);
+    }
+
+    public void putCursor(String name, ResultCursor cursor) {
+        cursors.put(name, cursor);
+    }
+
+    public ResultCursor getCursor(String name) {
+        return cursors.get(name);
+    }
+
+    public ResultCursor removeCursor(String name) {
+        return cursors.remove(name);
+    }
+}
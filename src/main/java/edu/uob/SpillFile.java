@@ -0,0 +1,47 @@
+package edu.uob;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Temporary file holding rows which do not fit in memory, one tab separated row per line.
+ * Its owner deletes it once done, as registering every spill for deletion on exit would grow without bound.
+ */
+public class SpillFile {
+    private final File file;
+    private boolean isDeleted = false;
+
+    public SpillFile(String prefix) throws IOException {
+        file = File.createTempFile(prefix, ".tab");
+    }
+
+    public BufferedWriter openWriter() throws IOException {
+        return new BufferedWriter(new FileWriter(file, true));
+    }
+
+    public BufferedReader openReader() throws IOException {
+        return new BufferedReader(new FileReader(file));
+    }
+
+    public static void writeRow(BufferedWriter writer, String[] row) throws IOException {
+        writer.write(String.join("\t", row));
+        writer.newLine();
+    }
+
+    public static String[] readRow(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        return line == null ? null : line.split("\t", -1);
+    }
+
+    public void delete() {
+        if (isDeleted) { return; }
+        isDeleted = true;
+        if (!file.delete() && file.exists()) {
+            ServerLog.getDefault().warn("spill_delete_failed", "path", file.getAbsolutePath());
+        }
+    }
+}
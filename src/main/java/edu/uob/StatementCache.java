@@ -0,0 +1,101 @@
+package edu.uob;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least recently used cache of parsed statements, keyed by their normalised text.
+ * Literals are lifted out of a statement before it is looked up, so statements differing only
+ * in their literals share one parsed template, which is then bound to the literals of each call.
+ */
+public class StatementCache {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final Map<String, DBCmd> templates;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    public StatementCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StatementCache(int capacity) {
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DBCmd> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** Returns the command of the tokens, reusing the template of an earlier statement of the same shape. */
+    public DBCmd getCommand(List<Token> tokens) throws ParseException {
+        // The literals of a prepared statement's parameters must stay literals, so these are parsed as they are
+        if (!tokens.isEmpty() && CmdType.isPreparedStatementCmd(tokens.get(0).getText())) {
+            return new Parser(tokens).parse();
+        }
+        List<Token> templateTokens = new ArrayList<>(tokens.size());
+        List<Token> literals = new ArrayList<>();
+        String key = normalise(tokens, templateTokens, literals);
+        DBCmd template = getTemplate(key);
+        try {
+            if (template == null) {
+                template = new Parser(templateTokens, true).parse();
+                putTemplate(key, template);
+            }
+            return template.bind(literals);
+        } catch (ParseException e) {
+            // Literals standing where no value may stand, e.g. a table named 2024, are left to the parser
+            return new Parser(tokens).parse();
+        }
+    }
+
+    /** Replaces every literal with a placeholder, collecting the literals and the resulting tokens on the way. */
+    private static String normalise(List<Token> tokens, List<Token> templateTokens, List<Token> literals) {
+        StringBuilder key = new StringBuilder();
+        for (Token token : tokens) {
+            Token templateToken = token;
+            if (token.getType().isLiteral()) {
+                literals.add(token);
+                templateToken = new Token(TokenType.PARAMETER, "?", token.getPosition());
+            }
+            templateTokens.add(templateToken);
+            String text = templateToken.getText();
+            key.append(token.getType() == TokenType.KEYWORD ? text.toUpperCase() : text).append(' ');
+        }
+        return key.toString();
+    }
+
+    private synchronized DBCmd getTemplate(String key) {
+        DBCmd template = templates.get(key);
+        if (template == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return template;
+    }
+
+    private synchronized void putTemplate(String key, DBCmd template) {
+        templates.put(key, template);
+    }
+
+    /** Drops every template, as they may refer to tables or columns which no longer look the same. */
+    public synchronized void invalidate() {
+        templates.clear();
+    }
+
+    public synchronized int getSize() {
+        return templates.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+}
@@ -1,8 +1,14 @@
 package edu.uob;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+import edu.uob.InterpretException.FailedCreatingFileException;
 import edu.uob.TableException.InsertInsufficientValuesException;
 import edu.uob.TableException.UsingReservedWordException;
 import edu.uob.TableException.InsertTooManyValuesException;
@@ -10,56 +16,202 @@ import edu.uob.TableException.NoColumnFoundException;
 import edu.uob.TableException.NoDataValueProvidedException;
 import edu.uob.TableException.ColumnAlreadyExistException;
 import edu.uob.TableException.IDColumnNotUpdatableException;
+import edu.uob.TableException.LockWaitTimeoutException;
 
 
-
+/**
+ * A table kept as a chain of immutable snapshots, newest first.
+ * Every change is written as new row versions under the write lock and published as the next snapshot in one commit,
+ * so readers pick the snapshot of their timestamp and never wait for writers.
+ * Inside a transaction the snapshots written are kept pending, under the transaction's stamp, until it commits.
+ */
 public class Table {
+    protected static final int GARBAGE_THRESHOLD = 1024;
+    protected static final long LOCK_WAIT_MILLIS = 10000;
+
     private final String name;
     private final String primaryKey;
-    private final List<String> columnNames;
-    private List<List<String>> dataValues;
-    private int lastPrimaryKey;
+    private final PrimaryKeySequence primaryKeys;
+    private final Semaphore writeLock = new Semaphore(1);
+    private volatile TableSnapshot current;
+    private TableSnapshot pending;
+    private CommitStamp pendingStamp;
+    private int pendingLastPrimaryKey;
+    private int garbageAmount = 0;
 
     public Table(String tableName, int lastPrimaryKey) {
+        this(tableName, new PrimaryKeySequence(null, lastPrimaryKey, lastPrimaryKey));
+    }
+
+    public Table(String tableName, PrimaryKeySequence primaryKeys) {
         this.name = tableName.toLowerCase();
         this.primaryKey = "id";
-        this.columnNames = new ArrayList<>();
-        this.dataValues = new ArrayList<>();
-        this.lastPrimaryKey = lastPrimaryKey;
+        this.primaryKeys = primaryKeys;
+        this.current = new TableSnapshot(name, primaryKey, Collections.emptyList(), new RowSlot[0], 0, 0, Collections.emptyList());
+        this.current.setCommitTimestamp(0);
     }
 
     public void addRowWithID(List<String> row) throws InsertInsufficientValuesException, InsertTooManyValuesException {
-        if (row.size() > columnNames.size()) {
-            throw new InsertTooManyValuesException(name);
-        } else if (row.size() < columnNames.size()) {
-            throw new InsertInsufficientValuesException(name);
+        addRowsWithID(List.of(row));
+    }
+
+    /** Appends rows which already carry their ids, all or none of them, as one commit. */
+    public void addRowsWithID(List<List<String>> rows) throws InsertInsufficientValuesException, InsertTooManyValuesException {
+        int columnAmount = working().getColumnNameList().size();
+        for (List<String> row : rows) {
+            if (row.size() > columnAmount) {
+                throw new InsertTooManyValuesException(name);
+            } else if (row.size() < columnAmount) {
+                throw new InsertInsufficientValuesException(name);
+            }
+        }
+        appendRows(rows);
+    }
+
+    public int getRowCount() {
+        return working().getRowCount();
+    }
+
+    /** Opens a cursor reading the rows the writer of the table sees in place, without copying them. */
+    public RowCursor openCursor() {
+        return working().openCursor();
+    }
+
+    /** Returns the snapshot a reader pinned to the given timestamp sees. */
+    public TableSnapshot getSnapshot(long timestamp) {
+        TableSnapshot snapshot = current;
+        while (snapshot.getCommitTimestamp() > timestamp && snapshot.getPrevious() != null) {
+            snapshot = snapshot.getPrevious();
         }
-        dataValues.add(row);
+        return snapshot;
+    }
+
+    /** Returns the snapshot the holder of the write lock works on, with the writes of its transaction. */
+    public TableSnapshot getWorkingSnapshot() {
+        return working();
     }
 
-    public void setLastPrimaryKey(int number) {
-        lastPrimaryKey = number;
+    private TableSnapshot working() {
+        return pending != null ? pending : current;
+    }
+
+    /**
+     * Takes the lock serialising the commands changing the table, which readers never take.
+     * The lock is not owned by a thread, as a transaction holds it from its first write on the table until it ends.
+     */
+    public void lockForWrite() throws LockWaitTimeoutException {
+        try {
+            if (writeLock.tryAcquire(LOCK_WAIT_MILLIS, TimeUnit.MILLISECONDS)) { return; }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new LockWaitTimeoutException(name);
+    }
+
+    public void unlockForWrite() {
+        writeLock.release();
+    }
+
+    /** Keeps every following write pending under the given stamp, until it is published or discarded. */
+    protected void beginPending(CommitStamp stamp) {
+        pendingStamp = stamp;
+        pendingLastPrimaryKey = primaryKeys.getLastKey();
+    }
+
+    /** Makes the pending snapshot current, from within the commit publishing the stamp of its writes. */
+    protected void publishPending(long timestamp) {
+        if (pending == null) { return; }
+        pending.setCommitTimestamp(timestamp);
+        pending.setPrevious(current);
+        current = pending;
+        pending = null;
+    }
+
+    /** Drops the pending writes, popping the versions they pushed onto rows readers still see. */
+    protected void discardPending() {
+        TableSnapshot snapshot = current;
+        for (int i = 0; i < snapshot.getSlotAmount(); i++) {
+            snapshot.getSlots()[i].discard(pendingStamp);
+        }
+        pending = null;
+        primaryKeys.setLastKey(pendingLastPrimaryKey);
+        endPending();
+    }
+
+    protected void endPending() {
+        pendingStamp = null;
+        if (garbageAmount >= GARBAGE_THRESHOLD) {
+            collectGarbage();
+        }
+    }
+
+    public ColumnStatistics getColumnStatistics(int columnIndex) {
+        return working().getColumnStatistics(columnIndex);
     }
 
     public int getLastPrimaryKey() {
-        return lastPrimaryKey;
+        return primaryKeys.getLastKey();
     }
 
     public String getPk() {
         return primaryKey;
     }
 
-    public void addRowWithoutID(List<String> row) throws InsertInsufficientValuesException, InsertTooManyValuesException {
-        if (row.size() + 1 > columnNames.size()) {
-            throw new InsertTooManyValuesException(name);
-        } else if (row.size() + 1 < columnNames.size()) {
-            throw new InsertInsufficientValuesException(name);
+    public void addRowWithoutID(List<String> row) throws InsertInsufficientValuesException, InsertTooManyValuesException,
+            FailedCreatingFileException {
+        addRowsWithoutID(List.of(row));
+    }
+
+    /**
+     * Appends rows which lack their ids, all or none of them: every row is checked before any is added,
+     * and the statistics are brought up to date once the rows are in. The rows take consecutive ids.
+     */
+    public void addRowsWithoutID(List<List<String>> rows) throws InsertInsufficientValuesException, InsertTooManyValuesException,
+            FailedCreatingFileException {
+        int columnAmount = working().getColumnNameList().size();
+        for (List<String> row : rows) {
+            if (row.size() + 1 > columnAmount) {
+                throw new InsertTooManyValuesException(name);
+            } else if (row.size() + 1 < columnAmount) {
+                throw new InsertInsufficientValuesException(name);
+            }
+        }
+        if (rows.isEmpty()) { return; }
+        int nextKey = primaryKeys.nextKeys(rows.size());
+        List<List<String>> rowsWithID = new ArrayList<>(rows.size());
+        for (List<String> row : rows) {
+            List<String> rowWithID = new ArrayList<>(row.size() + 1);
+            rowWithID.add(Integer.toString(nextKey++));
+            rowWithID.addAll(row);
+            rowsWithID.add(rowWithID);
+        }
+        appendRows(rowsWithID);
+    }
+
+    private void appendRows(List<List<String>> rows) {
+        TableSnapshot snapshot = working();
+        int slotAmount = snapshot.getSlotAmount() + rows.size();
+        RowSlot[] slots = snapshot.getSlots();
+        // Slots past the end of the current snapshot are unseen by its readers, so the array is shared while it has room
+        if (slots.length < slotAmount) {
+            slots = Arrays.copyOf(slots, Math.max(slotAmount, slots.length * 2));
+        }
+        List<ColumnStatistics> statistics = copyStatistics(snapshot.getStatistics());
+        CommitStamp stamp = newStamp();
+        int slotIndex = snapshot.getSlotAmount();
+        for (List<String> row : rows) {
+            List<String> values = freeze(row);
+            slots[slotIndex++] = new RowSlot(values, stamp);
+            addRowToStatistics(statistics, values);
+        }
+        publish(stamp, new TableSnapshot(name, primaryKey, snapshot.getColumnNameList(), slots, slotAmount,
+                snapshot.getRowCount() + rows.size(), statistics));
+    }
+
+    private static void addRowToStatistics(List<ColumnStatistics> statistics, List<String> row) {
+        for (int i = 0; i < statistics.size(); i++) {
+            statistics.get(i).add(row.get(i));
         }
-        ArrayList<String> rowWithID = new ArrayList<>();
-        rowWithID.add(Integer.toString(lastPrimaryKey + 1));
-        rowWithID.addAll(row);
-        lastPrimaryKey++;
-        addRowWithID(rowWithID);
     }
 
     public String getName() {
@@ -67,20 +219,11 @@ public class Table {
     }
 
     public String[] getTitles() {
-        String[] titles = new String[columnNames.size()];
-        for (int i = 0; i < columnNames.size(); i++) {
-            titles[i] = columnNames.get(i);
-        }
-        return titles;
+        return working().getTitles();
     }
 
     public int getTitleIndexByName(String columnName) {
-        for (int i = 0; i < columnNames.size(); i++) {
-            if (columnNames.get(i).equalsIgnoreCase(columnName)) {
-                return i;
-            }
-        }
-        return -1;
+        return working().getTitleIndexByName(columnName);
     }
 
     public void addColumn(String name) throws ColumnAlreadyExistException, UsingReservedWordException {
@@ -90,10 +233,13 @@ public class Table {
         if (DBKeyWords.isKeyword(name)) {
             throw new UsingReservedWordException(name);
         }
+        List<String> columnNames = snapshotColumnNames(working());
         columnNames.add(name);
-        for (List<String> row : dataValues) {
+        List<List<String>> rows = readNewestRows();
+        for (List<String> row : rows) {
             row.add("NULL");
         }
+        replaceRows(columnNames, rows);
     }
 
     public void dropColumn(String name) throws NoColumnFoundException, IDColumnNotUpdatableException {
@@ -104,76 +250,209 @@ public class Table {
         if (columnIndex < 0) {
             throw new NoColumnFoundException(name);
         }
-        columnNames.remove(name);
-        for (List<String> row : dataValues) {
+        List<String> columnNames = snapshotColumnNames(working());
+        columnNames.remove(columnIndex);
+        List<List<String>> rows = readNewestRows();
+        for (List<String> row : rows) {
             row.remove(columnIndex);
         }
+        replaceRows(columnNames, rows);
     }
 
     public int getColumnIdxByName(String columnName) {
-        int columnIndex = -1;
-        for (int i = 0; i < columnNames.size(); i++) {
-            if (columnNames.get(i).equalsIgnoreCase(columnName)) {
-                columnIndex = i;
-                break;
-            }
-        }
-        return columnIndex;
+        return working().getColumnIdxByName(columnName);
     }
 
     public boolean isColumnExist(String name) throws UsingReservedWordException {
-        if (DBKeyWords.isKeyword(name)) {
-            throw new UsingReservedWordException(name);
-        }
-        for (String column : columnNames) {
-            if (column.equalsIgnoreCase(name)) {
-                return true;
-            }
-        }
-        return false;
+        return working().isColumnExist(name);
     }
 
     public String[][] getDataValues() {
-        int rowAmount = dataValues.size();
-        int columnAmount = columnNames.size();
-        String[][] values = new String[rowAmount][columnAmount];
-        for (int i = 0; i < rowAmount; i++) {
-            for (int j = 0; j < columnAmount; j++) {
-                values[i][j] = dataValues.get(i).get(j);
+        return working().getDataValues();
+    }
+
+    public List<List<String>> getDataValuesByColumns(List<String> cols) throws NoColumnFoundException {
+        return working().getDataValuesByColumns(cols);
+    }
+
+    /** Copies at most {@code maxRows} rows (all of them when negative) starting from row {@code fromRow}. */
+    public List<List<String>> getDataValuesByColumns(List<String> cols, int fromRow, int maxRows) throws NoColumnFoundException {
+        return working().getDataValuesByColumns(cols, fromRow, maxRows);
+    }
+
+    /**
+     * Writes a new version of the given rows with the given columns set.
+     * The statistics follow every changed value, and a column is only read again when a smallest or largest value changes.
+     */
+    public void updateRows(List<Integer> rowIndexes, int[] columnIndexes, String[] values) {
+        if (rowIndexes.isEmpty()) { return; }
+        TableSnapshot snapshot = working();
+        CommitStamp stamp = newStamp();
+        List<ColumnStatistics> statistics = copyStatistics(snapshot.getStatistics());
+        BitSet staleColumns = new BitSet();
+        for (int rowIndex : rowIndexes) {
+            RowSlot slot = snapshot.getSlots()[rowIndex];
+            List<String> row = new ArrayList<>(slot.readNewest());
+            for (int i = 0; i < columnIndexes.length; i++) {
+                ColumnStatistics columnStatistics = statistics.get(columnIndexes[i]);
+                if (!columnStatistics.remove(row.get(columnIndexes[i]))) { staleColumns.set(columnIndexes[i]); }
+                columnStatistics.add(values[i]);
+                row.set(columnIndexes[i], values[i]);
             }
+            slot.write(freeze(row), stamp);
         }
-
-        return values;
+        refreshStatistics(snapshot, statistics, staleColumns);
+        garbageAmount += rowIndexes.size();
+        publish(stamp, new TableSnapshot(name, primaryKey, snapshot.getColumnNameList(), snapshot.getSlots(),
+                snapshot.getSlotAmount(), snapshot.getRowCount(), statistics));
     }
 
-    public List<List<String>> getDataValuesByColumns(List<String> cols) throws NoColumnFoundException {
-        int[] selectedIndexes = new int[cols.size()];
-        for (int i = 0; i < cols.size(); i++) {
-            int idx = getColumnIdxByName(cols.get(i));
-            if (idx < 0) { throw new NoColumnFoundException(cols.get(i)); }
-            selectedIndexes[i] = idx;
-        }
-        List<List<String>> newDataValues = new ArrayList<>();
-        int rowAmount = dataValues.size();
-        int columnAmount = selectedIndexes.length;
-        for (int i = 0; i < rowAmount; i++) {
-            newDataValues.add(new ArrayList<>());
-            for (int j = 0; j < columnAmount; j++) {
-                newDataValues.get(i).add(dataValues.get(i).get(selectedIndexes[j]));
+    /** Deletes the given rows, whose slots stay until no reader can see the rows any more. */
+    public void deleteRows(BitSet rowIndexes) {
+        if (rowIndexes.isEmpty()) { return; }
+        TableSnapshot snapshot = working();
+        CommitStamp stamp = newStamp();
+        List<ColumnStatistics> statistics = copyStatistics(snapshot.getStatistics());
+        BitSet staleColumns = new BitSet();
+        for (int i = rowIndexes.nextSetBit(0); i >= 0; i = rowIndexes.nextSetBit(i + 1)) {
+            RowSlot slot = snapshot.getSlots()[i];
+            List<String> row = slot.readNewest();
+            for (int j = 0; j < statistics.size(); j++) {
+                if (!statistics.get(j).remove(row.get(j))) { staleColumns.set(j); }
             }
+            slot.write(null, stamp);
         }
-        return newDataValues;
+        refreshStatistics(snapshot, statistics, staleColumns);
+        garbageAmount += rowIndexes.cardinality();
+        publish(stamp, new TableSnapshot(name, primaryKey, snapshot.getColumnNameList(), snapshot.getSlots(),
+                snapshot.getSlotAmount(), snapshot.getRowCount() - rowIndexes.cardinality(), statistics));
     }
 
     public void updateDataValues(List<List<String>> dataValues) throws NoDataValueProvidedException {
         if (dataValues == null) {
             throw new NoDataValueProvidedException();
         }
-        this.dataValues = dataValues;
+        replaceRows(working().getColumnNameList(), dataValues);
+    }
+
+    /** Publishes the given columns and rows in fresh slots, leaving the slots of older snapshots to their readers. */
+    private void replaceRows(List<String> columnNames, List<List<String>> rows) {
+        CommitStamp stamp = newStamp();
+        RowSlot[] slots = new RowSlot[rows.size()];
+        List<ColumnStatistics> statistics = new ArrayList<>();
+        for (int i = 0; i < columnNames.size(); i++) {
+            statistics.add(new ColumnStatistics());
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            List<String> values = freeze(rows.get(i));
+            slots[i] = new RowSlot(values, stamp);
+            addRowToStatistics(statistics, values);
+        }
+        garbageAmount += working().getRowCount();
+        publish(stamp, new TableSnapshot(name, primaryKey, columnNames, slots, slots.length,
+                slots.length, statistics));
+    }
+
+    /** Copies the values last written to every row, in their stored order. */
+    private List<List<String>> readNewestRows() {
+        TableSnapshot snapshot = working();
+        List<List<String>> rows = new ArrayList<>(snapshot.getRowCount());
+        for (int i = 0; i < snapshot.getSlotAmount(); i++) {
+            List<String> values = snapshot.getSlots()[i].readNewest();
+            if (values != null) { rows.add(new ArrayList<>(values)); }
+        }
+        return rows;
+    }
+
+    /** Collects the statistics of the stale columns again from the rows last written, in one pass over the table. */
+    private static void refreshStatistics(TableSnapshot snapshot, List<ColumnStatistics> statistics, BitSet staleColumns) {
+        if (staleColumns.isEmpty()) { return; }
+        for (int i = staleColumns.nextSetBit(0); i >= 0; i = staleColumns.nextSetBit(i + 1)) {
+            statistics.get(i).reset();
+        }
+        for (int i = 0; i < snapshot.getSlotAmount(); i++) {
+            List<String> values = snapshot.getSlots()[i].readNewest();
+            if (values == null) { continue; }
+            for (int j = staleColumns.nextSetBit(0); j >= 0; j = staleColumns.nextSetBit(j + 1)) {
+                statistics.get(j).add(values.get(j));
+            }
+        }
+    }
+
+    private static List<ColumnStatistics> copyStatistics(List<ColumnStatistics> statistics) {
+        List<ColumnStatistics> copies = new ArrayList<>(statistics.size());
+        for (ColumnStatistics columnStatistics : statistics) {
+            copies.add(columnStatistics.copy());
+        }
+        return copies;
+    }
+
+    private static List<String> snapshotColumnNames(TableSnapshot snapshot) {
+        return new ArrayList<>(snapshot.getColumnNameList());
+    }
+
+    private static List<String> freeze(List<String> row) {
+        return Collections.unmodifiableList(new ArrayList<>(row));
+    }
+
+    private CommitStamp newStamp() {
+        return pendingStamp != null ? pendingStamp : new CommitStamp();
+    }
+
+    /**
+     * Makes the new snapshot and every row version stamped for it visible at once, under the next commit timestamp,
+     * or keeps it pending when a transaction is writing the table.
+     */
+    private void publish(CommitStamp stamp, TableSnapshot next) {
+        if (pendingStamp != null) {
+            pending = next;
+            return;
+        }
+        VersionClock.commit(timestamp -> {
+            stamp.setTimestamp(timestamp);
+            next.setCommitTimestamp(timestamp);
+            next.setPrevious(current);
+            current = next;
+        });
+        if (garbageAmount >= GARBAGE_THRESHOLD) {
+            collectGarbage();
+        }
+    }
+
+    /**
+     * Drops the snapshots and row versions older than what the oldest pinned reader sees,
+     * and the slots of rows every reader sees deleted, once no reader still reads the current snapshot's predecessors.
+     */
+    protected void collectGarbage() {
+        // A forgotten cursor would otherwise keep every version since it was declared
+        ResultCursor.closeIdleCursors(ResultCursor.IDLE_TIMEOUT_MILLIS);
+        long oldestTimestamp = VersionClock.getOldestPinnedTimestamp();
+        TableSnapshot snapshot = current;
+        while (snapshot.getCommitTimestamp() > oldestTimestamp && snapshot.getPrevious() != null) {
+            snapshot = snapshot.getPrevious();
+        }
+        snapshot.setPrevious(null);
+        snapshot = current;
+        boolean hasDeadSlots = false;
+        for (int i = 0; i < snapshot.getSlotAmount(); i++) {
+            hasDeadSlots |= snapshot.getSlots()[i].prune(oldestTimestamp);
+        }
+        garbageAmount = 0;
+        if (!hasDeadSlots || snapshot.getCommitTimestamp() > oldestTimestamp) { return; }
+        RowSlot[] slots = new RowSlot[snapshot.getRowCount()];
+        int slotAmount = 0;
+        for (int i = 0; i < snapshot.getSlotAmount(); i++) {
+            RowSlot slot = snapshot.getSlots()[i];
+            if (slot.readNewest() != null) { slots[slotAmount++] = slot; }
+        }
+        TableSnapshot compacted = new TableSnapshot(name, primaryKey, snapshot.getColumnNameList(), slots, slotAmount,
+                snapshot.getRowCount(), snapshot.getStatistics());
+        compacted.setCommitTimestamp(snapshot.getCommitTimestamp());
+        current = compacted;
     }
 
     public String[] getColumnNames() {
-        return columnNames.toArray(new String[0]);
+        return working().getColumnNames();
     }
 
     public static String tableToString(List<String> cols, List<List<String>> dataValues) {
@@ -194,21 +473,6 @@ public class Table {
     }
 
     protected List<String> getRawTitlesByTitles(String[] names) throws NoColumnFoundException, UsingReservedWordException {
-        ArrayList<String> titles = new ArrayList<>();
-        for (String inputName : names) {
-            boolean isFound = false;
-            for (String savedName : columnNames) {
-                if (!savedName.equalsIgnoreCase(inputName)) { continue; }
-                if (DBKeyWords.isKeyword(savedName)) {
-                    throw new UsingReservedWordException(name);
-                }
-                titles.add(savedName);
-                isFound = true;
-                break;
-            }
-            if (isFound) { continue; }
-            throw new NoColumnFoundException(inputName);
-        }
-        return titles;
+        return working().getRawTitlesByTitles(names);
     }
 }
@@ -72,10 +72,24 @@ public class TableException extends Exception {
         }
     }
 
+    public static class NotGroupedColumnException extends TableException {
+        @Serial private static final long serialVersionUID = 1;
+        public NotGroupedColumnException(String columnName) {
+            super("Column " + columnName + " should be grouped by or used in an aggregate function");
+        }
+    }
+
     public static class FailedDeletingTableException extends TableException {
         @Serial private static final long serialVersionUID = 1;
         public FailedDeletingTableException(String tableName) {
             super("Failed deleting table " + tableName);
         }
     }
+
+    public static class LockWaitTimeoutException extends TableException {
+        @Serial private static final long serialVersionUID = 1;
+        public LockWaitTimeoutException(String tableName) {
+            super("Timed out waiting for table " + tableName + " to be unlocked");
+        }
+    }
 }
@@ -0,0 +1,170 @@
+package edu.uob;
+
+import java.util.ArrayList;
+import java.util.List;
+import edu.uob.TableException.NoColumnFoundException;
+import edu.uob.TableException.UsingReservedWordException;
+
+/**
+ * The columns and rows of a table as of one commit.
+ * A snapshot is never changed once published, so readers holding it need no lock while writers carry on.
+ * Snapshots of a table share their row slots, each slot handing out the row version of the snapshot's commit.
+ * A snapshot not yet committed reads the newest versions, which only the writer holding the table has written.
+ */
+public class TableSnapshot {
+    private final String name;
+    private final String primaryKey;
+    private final List<String> columnNames;
+    private final RowSlot[] slots;
+    private final int slotAmount;
+    private final int rowCount;
+    private final List<ColumnStatistics> statistics;
+    private long commitTimestamp = CommitStamp.UNCOMMITTED;
+    private volatile TableSnapshot previous;
+
+    protected TableSnapshot(String name, String primaryKey, List<String> columnNames, RowSlot[] slots, int slotAmount,
+                            int rowCount, List<ColumnStatistics> statistics) {
+        this.name = name;
+        this.primaryKey = primaryKey;
+        this.columnNames = List.copyOf(columnNames);
+        this.slots = slots;
+        this.slotAmount = slotAmount;
+        this.rowCount = rowCount;
+        this.statistics = List.copyOf(statistics);
+    }
+
+    protected long getCommitTimestamp() {
+        return commitTimestamp;
+    }
+
+    protected void setCommitTimestamp(long commitTimestamp) {
+        this.commitTimestamp = commitTimestamp;
+    }
+
+    protected TableSnapshot getPrevious() {
+        return previous;
+    }
+
+    protected void setPrevious(TableSnapshot previous) {
+        this.previous = previous;
+    }
+
+    protected List<String> getColumnNameList() {
+        return columnNames;
+    }
+
+    protected RowSlot[] getSlots() {
+        return slots;
+    }
+
+    protected int getSlotAmount() {
+        return slotAmount;
+    }
+
+    protected List<ColumnStatistics> getStatistics() {
+        return statistics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPk() {
+        return primaryKey;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** Opens a cursor reading the rows of this snapshot in place, without copying them. */
+    public RowCursor openCursor() {
+        return new RowCursor(this, slots, slotAmount, commitTimestamp);
+    }
+
+    public ColumnStatistics getColumnStatistics(int columnIndex) {
+        return statistics.get(columnIndex);
+    }
+
+    public String[] getTitles() {
+        return columnNames.toArray(new String[0]);
+    }
+
+    public String[] getColumnNames() {
+        return columnNames.toArray(new String[0]);
+    }
+
+    public int getTitleIndexByName(String columnName) {
+        return getColumnIdxByName(columnName);
+    }
+
+    public int getColumnIdxByName(String columnName) {
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isColumnExist(String name) throws UsingReservedWordException {
+        if (DBKeyWords.isKeyword(name)) {
+            throw new UsingReservedWordException(name);
+        }
+        return getColumnIdxByName(name) >= 0;
+    }
+
+    public String[][] getDataValues() {
+        String[][] values = new String[rowCount][columnNames.size()];
+        RowCursor cursor = openCursor();
+        for (int i = 0; cursor.next(); i++) {
+            for (int j = 0; j < columnNames.size(); j++) {
+                values[i][j] = cursor.getValue(j);
+            }
+        }
+        return values;
+    }
+
+    public List<List<String>> getDataValuesByColumns(List<String> cols) throws NoColumnFoundException {
+        return getDataValuesByColumns(cols, 0, -1);
+    }
+
+    /** Copies at most {@code maxRows} rows (all of them when negative) starting from row {@code fromRow}. */
+    public List<List<String>> getDataValuesByColumns(List<String> cols, int fromRow, int maxRows) throws NoColumnFoundException {
+        int[] selectedIndexes = new int[cols.size()];
+        for (int i = 0; i < cols.size(); i++) {
+            int idx = getColumnIdxByName(cols.get(i));
+            if (idx < 0) { throw new NoColumnFoundException(cols.get(i)); }
+            selectedIndexes[i] = idx;
+        }
+        List<List<String>> newDataValues = new ArrayList<>();
+        RowCursor cursor = openCursor();
+        int skipped = 0;
+        while ((maxRows < 0 || newDataValues.size() < maxRows) && cursor.next()) {
+            if (skipped < fromRow) {
+                skipped++;
+                continue;
+            }
+            List<String> row = new ArrayList<>(selectedIndexes.length);
+            for (int selectedIndex : selectedIndexes) {
+                row.add(cursor.getValue(selectedIndex));
+            }
+            newDataValues.add(row);
+        }
+        return newDataValues;
+    }
+
+    protected List<String> getRawTitlesByTitles(String[] names) throws NoColumnFoundException, UsingReservedWordException {
+        ArrayList<String> titles = new ArrayList<>();
+        for (String inputName : names) {
+            int columnIndex = getColumnIdxByName(inputName);
+            if (columnIndex < 0) { throw new NoColumnFoundException(inputName); }
+            String savedName = columnNames.get(columnIndex);
+            if (DBKeyWords.isKeyword(savedName)) {
+                throw new UsingReservedWordException(name);
+            }
+            titles.add(savedName);
+        }
+        return titles;
+    }
+}
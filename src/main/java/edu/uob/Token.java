@@ -0,0 +1,36 @@
+package edu.uob;
+
+/** A token of a query, remembering where in the query it starts. */
+public class Token {
+    private final TokenType type;
+    private final String text;
+    private final int position;
+
+    public Token(TokenType type, String text, int position) {
+        this.type = type;
+        this.text = text;
+        this.position = position;
+    }
+
+    public TokenType getType() {
+        return type;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /** Returns what a literal stands for, which is its text without the quotes of a string literal. */
+    public String getValue() {
+        return type == TokenType.STRING_LITERAL ? text.substring(1, text.length() - 1) : text;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,21 @@
+package edu.uob;
+
+public enum TokenType {
+    KEYWORD,
+    IDENTIFIER,
+    STRING_LITERAL,
+    INTEGER_LITERAL,
+    FLOAT_LITERAL,
+    BOOLEAN_LITERAL,
+    NULL_LITERAL,
+    OPERATOR,
+    SYMBOL,
+    PARAMETER;
+
+    public boolean isLiteral() {
+        return switch (this) {
+            case STRING_LITERAL, INTEGER_LITERAL, FLOAT_LITERAL, BOOLEAN_LITERAL, NULL_LITERAL -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package edu.uob;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import edu.uob.TableException.LockWaitTimeoutException;
+
+/**
+ * Writes of a session between BEGIN and COMMIT or ROLLBACK.
+ * Every table written is locked until the transaction ends and its writes are kept pending under one stamp,
+ * so the writes to all tables become visible in one commit, or are dropped together.
+ */
+public class Transaction {
+    private final CommitStamp stamp = new CommitStamp();
+    private final Set<Table> tables = new LinkedHashSet<>();
+
+    /** Locks the table for the rest of the transaction, the first time the transaction writes it. */
+    protected void join(Table table) throws LockWaitTimeoutException {
+        if (tables.contains(table)) { return; }
+        table.lockForWrite();
+        table.beginPending(stamp);
+        tables.add(table);
+    }
+
+    protected boolean isJoined(Table table) {
+        return tables.contains(table);
+    }
+
+    protected List<Table> getTables() {
+        return new ArrayList<>(tables);
+    }
+
+    /** Publishes the pending writes of every table under one commit timestamp. */
+    protected void commit() {
+        VersionClock.commit(timestamp -> {
+            stamp.setTimestamp(timestamp);
+            for (Table table : tables) {
+                table.publishPending(timestamp);
+            }
+        });
+        for (Table table : tables) {
+            table.endPending();
+        }
+    }
+
+    /** Drops the pending writes of every table and unlocks them. */
+    protected void rollback() {
+        for (Table table : tables) {
+            table.discardPending();
+        }
+        release();
+    }
+
+    protected void release() {
+        for (Table table : tables) {
+            table.unlockForWrite();
+        }
+        tables.clear();
+    }
+}
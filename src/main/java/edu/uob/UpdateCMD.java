@@ -11,26 +11,38 @@ import edu.uob.InterpretException.StringWithNoQuoteException;
 import edu.uob.InterpretException.FailedCreatingFileException;
 
 public class UpdateCMD extends DBCmd {
-    private final Map<String, String> nameValueMap = new HashMap<>();
+    protected final Map<String, String> nameValueMap = new LinkedHashMap<>();
+    protected final Map<String, Integer> parameterIndexes = new HashMap<>();
     public UpdateCMD() {
         super();
-        tableNames = new ArrayList<>();
-        colNames = new ArrayList<>();
-        currentIdx = 1;
     }
 
     @Override
-    public String query(DBServer server) {
+    protected DBCmd bind(List<Token> parameters) throws ParseException {
+        checkParameterAmount(parameters);
+        if (parameterAmount == 0) { return this; }
+        UpdateCMD updateCmd = new UpdateCMD();
+        updateCmd.tableNames = tableNames;
+        for (Map.Entry<String, String> entry : nameValueMap.entrySet()) {
+            Integer parameterIndex = parameterIndexes.get(entry.getKey());
+            String value = parameterIndex == null ? entry.getValue() : bindValue(parameters.get(parameterIndex));
+            updateCmd.nameValueMap.put(entry.getKey(), value);
+        }
+        updateCmd.condition = condition.bind(parameters);
+        return updateCmd;
+    }
+
+    @Override
+    public String query(Session session) {
         try {
-            queryTableName(server);
-            Table table = server.getDB().getTableByName(tableNames.get(0));
-            currentIdx++;
-            queryNameValueList(server);
-            currentIdx++;
-            List<List<String>> newDataValues = queryCondition(server, currentIdx, table);
-            table.updateDataValues(newDataValues);
-            saveTable(server);
-            return "[OK]";
+            checkTableNames();
+            Table table = session.getDB().getTableByName(tableNames.get(0));
+            checkAttributeNames();
+            return writeTable(session, table, () -> {
+                updateRowValues(queryCondition(table), table);
+                saveTable(session);
+                return "[OK]";
+            });
         } catch (NoTableFoundException | StringWithNoQuoteException | FailedCreatingFileException |
                  IOException | IDColumnNotUpdatableException |
                  NoColumnFoundException | UsingReservedWordException e) {
@@ -40,26 +52,32 @@ public class UpdateCMD extends DBCmd {
         }
     }
 
-    private List<List<String>> queryCondition(DBServer server, int index, Table table) throws StringWithNoQuoteException, IDColumnNotUpdatableException, NoColumnFoundException {
-        String[] colNamesArray = table.getTitles();
-        String[][] dataValues = table.getDataValues();
-        Condition condition = Parser.parseCondition(server, index);
-        List<List<String>> newDataValues = new ArrayList<>();
-        for (String[] dataValue : dataValues) {
-            if (!isMatchConditions(condition, colNamesArray, dataValue)) {
-                newDataValues.add(new ArrayList<>(Arrays.asList(dataValue)));
-                continue;
+    private void checkAttributeNames() throws UsingReservedWordException {
+        for (String attributeName : nameValueMap.keySet()) {
+            if (DBKeyWords.isKeyword(attributeName)) {
+                throw new UsingReservedWordException(attributeName);
+            }
+        }
+    }
+
+    private List<Integer> queryCondition(Table table) throws StringWithNoQuoteException {
+        List<Integer> matchedRows = new ArrayList<>();
+        RowCursor cursor = table.openCursor();
+        while (cursor.next()) {
+            if (isMatchConditions(condition, cursor)) {
+                matchedRows.add(cursor.getRowIndex());
             }
-            String[] updatedRow = updateRowValues(dataValue, table);
-            newDataValues.add(new ArrayList<>(Arrays.asList(updatedRow)));
         }
-        return newDataValues;
+        return matchedRows;
     }
 
-    private String[] updateRowValues(String[] row, Table table) throws IDColumnNotUpdatableException, NoColumnFoundException {
+    private void updateRowValues(List<Integer> matchedRows, Table table) throws IDColumnNotUpdatableException, NoColumnFoundException {
+        if (matchedRows.isEmpty()) { return; }
+        int[] columnIndexes = new int[nameValueMap.size()];
+        String[] values = new String[nameValueMap.size()];
+        int iteration = 0;
         for (Map.Entry<String, String> entry : nameValueMap.entrySet()) {
             String columnName  = entry.getKey();
-            String value = entry.getValue();
             if (columnName.equalsIgnoreCase(table.getPk())) {
                 throw new IDColumnNotUpdatableException();
             }
@@ -67,26 +85,10 @@ public class UpdateCMD extends DBCmd {
             if (columnIndex < 0) {
                 throw new NoColumnFoundException(columnName);
             }
-            row[columnIndex] = value;
-        }
-        return row;
-    }
-
-    private void queryNameValueList(DBServer server) throws UsingReservedWordException {
-        queryNameValuePair(server);
-        if (!server.getTokens()[currentIdx].equals(",")) { return; }
-        currentIdx++;
-        queryNameValueList(server);
-    }
-
-    private void queryNameValuePair(DBServer server) throws UsingReservedWordException {
-        String attributeName = server.getTokens()[currentIdx];
-        if (DBKeyWords.isKeyword(attributeName)) {
-            throw new UsingReservedWordException(attributeName);
+            columnIndexes[iteration] = columnIndex;
+            values[iteration] = entry.getValue();
+            iteration++;
         }
-        currentIdx+=2;
-        String value = server.getTokens()[currentIdx];
-        nameValueMap.put(attributeName, value);
-        currentIdx++;
+        table.updateRows(matchedRows, columnIndexes, values);
     }
 }
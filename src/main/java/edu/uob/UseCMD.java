@@ -3,34 +3,40 @@ package edu.uob;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import edu.uob.InterpretException.FailedReadingFileException;
 
 public class UseCMD extends DBCmd {
 
     public UseCMD() {
         super();
-        currentIdx = 1;
     }
 
     @Override
-    public String query(DBServer server) {
-        dbName = server.getTokens()[currentIdx].toLowerCase();
-        String path = server.getStorageFolderPath() + File.separator + dbName;
+    protected boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public String query(Session session) {
+        String dbName = this.dbName.toLowerCase();
+        String path = session.getStorageFolderPath() + File.separator + dbName;
         try {
-            readDbFromFile(path, server);
+            // The database is only read from disk when no other session is using it already
+            session.setDB(session.getCatalog().acquire(dbName, name -> readDbFromFile(path)));
             return "[OK]";
         } catch (Exception e) {
             return "[ERROR]: Failed using database " + dbName;
         }
     }
 
-    private void readDbFromFile(String filePath, DBServer server) throws FailedReadingFileException, FileNotFoundException {
+    private Database readDbFromFile(String filePath) throws FailedReadingFileException, FileNotFoundException {
         File directory = new File(filePath);
         if (!directory.exists() || !directory.isDirectory()) {
             throw new FileNotFoundException("File not found or is not a directory: " + filePath);
         }
         // init database
-        server.setDB(new Database(directory.getName()));
+        Database database = new Database(directory.getName());
 
         try {
             final FilenameFilter tableFilter = (file, name) -> !name.contains("_config");
@@ -38,43 +44,46 @@ public class UseCMD extends DBCmd {
             File[] tableFiles = directory.listFiles(tableFilter);
             File[] configFiles = directory.listFiles(configFilter);
             for (File file : tableFiles != null ? tableFiles : new File[0]) {
-                readTableFile(file, configFiles, filePath, server);
+                readTableFile(file, configFiles, filePath, database);
             }
         } catch (Exception e) {
             throw e;
         }
+        return database;
     }
 
-    private void readTableFile(File file, File[] configFiles, String filePath, DBServer server) throws FailedReadingFileException {
-        int lastPk = readLastPkFromFile(file.getName(), configFiles);
-        Table table = new Table(file.getName().split(".tab")[0], lastPk);
+    /**
+     * Reads a table and picks up its ids after the key kept in its config file, or after the largest id stored if that
+     * is higher, so an id handed out before is never reused, even once its row has been deleted.
+     */
+    private void readTableFile(File file, File[] configFiles, String filePath, Database database) throws FailedReadingFileException {
+        String tableName = file.getName().split(".tab")[0];
+        int reservedPk = readLastPkFromFile(file.getName(), configFiles);
         try (FileReader reader = new FileReader(file);
              BufferedReader bufferedReader = new BufferedReader(reader)
              ) {
-            String lineString;
-            boolean isHeader = true;
-            int rowCount = 0;
+            String lineString = bufferedReader.readLine();
+            String[] columns = lineString == null ? new String[0] : lineString.split("\t");
+            List<List<String>> rows = new ArrayList<>();
+            int lastPk = 0;
             while ((lineString = bufferedReader.readLine()) != null) {
-                String[] columns = lineString.split("\t");
-                if (isHeader) {
-                    for (String column : columns) {
-                        table.addColumn(column);
-                    }
-                    isHeader = false;
-                } else {
-                    ArrayList<String> row = new ArrayList<>(Arrays.asList(columns));
-                    table.addRowWithID(row);
-                    rowCount++;
-                }
+                List<String> row = Arrays.asList(lineString.split("\t"));
+                lastPk = Math.max(lastPk, Integer.parseInt(row.get(0)));
+                rows.add(row);
+            }
+            String tablePath = filePath + File.separator + tableName;
+            if (reservedPk == -1) {
+                reservedPk = lastPk;
+                saveConfig(tablePath, reservedPk);
             }
-            if (lastPk == -1) {
-                table.setLastPrimaryKey(rowCount);
-                String tablePath = filePath + File.separator + file.getName().split(".tab")[0];
-                saveConfig(tablePath, rowCount);
+            Table table = new Table(tableName, new PrimaryKeySequence(tablePath, Math.max(reservedPk, lastPk), reservedPk));
+            for (String column : columns) {
+                table.addColumn(column);
             }
-            server.getDB().addTable(table);
+            table.addRowsWithID(rows);
+            database.addTable(table);
         } catch (Exception e) {
-            throw new FailedReadingFileException("Table: " + table.getName());
+            throw new FailedReadingFileException("Table: " + tableName);
         }
     }
 
@@ -11,13 +11,15 @@ public enum ValueType {
     INTEGER,
     NULL;
 
+    /** Classifies a stored value with the lexer's number scan rather than a regex, as it runs in every comparison. */
     public static ValueType parseType(String value)  {
         boolean isTrueType = DBKeyWords.isTargetType(DBKeyWords.TRUE, value);
         boolean isFalseType = DBKeyWords.isTargetType(DBKeyWords.FALSE, value);
         if (isTrueType || isFalseType) { return BOOLEAN; }
         if (DBKeyWords.isTargetType(DBKeyWords.NULL, value)) { return NULL; }
-        if (value.matches("^[-+]?\\d+$")) { return INTEGER; }
-        if (value.matches("^[-+]?\\d+(\\.\\d+)?$")) { return FLOAT; }
+        TokenType numberType = Lexer.classifyNumber(value);
+        if (numberType == TokenType.INTEGER_LITERAL) { return INTEGER; }
+        if (numberType == TokenType.FLOAT_LITERAL) { return FLOAT; }
         return STRING;
     }
 
@@ -34,6 +36,35 @@ public enum ValueType {
         };
     }
 
+    /**
+     * Orders two stored values by their type first (numbers, booleans, strings, then NULL)
+     * and by their value within the same type, numbers being compared numerically.
+     */
+    public static int compareValues(String firstValue, String secondValue) {
+        return compareValues(firstValue, parseType(firstValue), secondValue, parseType(secondValue));
+    }
+
+    /** Compares values whose types are already known, e.g. a kept minimum, so neither is classified again. */
+    public static int compareValues(String firstValue, ValueType firstType, String secondValue, ValueType secondType) {
+        int typeOrder = Integer.compare(getSortRank(firstType), getSortRank(secondType));
+        if (typeOrder != 0) { return typeOrder; }
+        return switch (firstType) {
+            case INTEGER, FLOAT -> Double.compare(Double.parseDouble(firstValue), Double.parseDouble(secondValue));
+            case BOOLEAN -> Boolean.compare(Boolean.parseBoolean(firstValue), Boolean.parseBoolean(secondValue));
+            case STRING -> firstValue.compareTo(secondValue);
+            case NULL -> 0;
+        };
+    }
+
+    private static int getSortRank(ValueType type) {
+        return switch (type) {
+            case INTEGER, FLOAT -> 0;
+            case BOOLEAN -> 1;
+            case STRING -> 2;
+            case NULL -> 3;
+        };
+    }
+
     public static String retrieveStringFromQuote(String value) throws StringWithNoQuoteException {
         Pattern pattern = Pattern.compile("^'(.*?)'$");
         Matcher matcher = pattern.matcher(value);
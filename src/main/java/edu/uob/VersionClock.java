@@ -0,0 +1,43 @@
+package edu.uob;
+
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Hands out commit timestamps and keeps track of the snapshots readers are pinned to.
+ * A commit is published under the clock's lock, so a reader pinned to a timestamp sees either all of it or none of it,
+ * and versions older than the oldest pinned snapshot can be dropped as no reader will ask for them again.
+ */
+public class VersionClock {
+    private static long lastTimestamp = 0;
+    private static final TreeMap<Long, Integer> pinnedTimestamps = new TreeMap<>();
+
+    private VersionClock() {}
+
+    /** Assigns the next timestamp to a write and publishes it, before any reader can pin that timestamp. */
+    public static synchronized long commit(LongConsumer publish) {
+        long timestamp = lastTimestamp + 1;
+        publish.accept(timestamp);
+        lastTimestamp = timestamp;
+        return timestamp;
+    }
+
+    /** Pins a snapshot of everything committed so far, which stays readable until it is unpinned. */
+    public static synchronized long pin() {
+        pinnedTimestamps.merge(lastTimestamp, 1, Integer::sum);
+        return lastTimestamp;
+    }
+
+    public static synchronized void unpin(long timestamp) {
+        pinnedTimestamps.computeIfPresent(timestamp, (pinned, amount) -> amount > 1 ? amount - 1 : null);
+    }
+
+    /** Returns the oldest timestamp any reader may still read at, which is the latest one when nobody is reading. */
+    public static synchronized long getOldestPinnedTimestamp() {
+        return pinnedTimestamps.isEmpty() ? lastTimestamp : pinnedTimestamps.firstKey();
+    }
+
+    public static synchronized long getLastTimestamp() {
+        return lastTimestamp;
+    }
+}
@@ -7,12 +7,35 @@ import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.uob.InterpretException.StringWithNoQuoteException;
 
@@ -559,6 +582,717 @@ public class ExampleDBTests {
         assertFalse(response.contains("Dave"), "An attempt was made to get data, but got unmatched data by SELECT * FROM marks WHERE (pass > TRUE);");
     }
 
+    @Test
+    public void testSelectProjectsColumnsOfFilteredRows() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65, TRUE), ('Dave', 55, TRUE), ('Bob', 35, FALSE), ('Clive', 20, FALSE);");
+        // The condition reads mark, which is not one of the projected columns
+        String response = sendCommandToServer("SELECT pass, name FROM marks WHERE mark > 30 AND name != 'Dave';");
+        List<String> lines = response.strip().lines().map(String::strip).toList();
+        assertEquals(List.of("[OK]:", "pass\tname", "TRUE\tSteve", "FALSE\tBob"), lines,
+                "SELECT with a WHERE and a column list did not return the projected columns of the matching rows only");
+    }
+
+    // SELECT: LIMIT, ORDER BY, AGGREGATES AND DISTINCT
+    @Test
+    public void testSelectWithLimitAndOffset() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65, TRUE);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Dave', 55, TRUE);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Bob', 35, FALSE);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Clive', 20, FALSE);");
+
+        String response = sendCommandToServer("SELECT * FROM marks LIMIT 2;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("Steve"), "Steve is within the first 2 rows, but was not returned by SELECT * FROM marks LIMIT 2;");
+        assertTrue(response.contains("Dave"), "Dave is within the first 2 rows, but was not returned by SELECT * FROM marks LIMIT 2;");
+        assertFalse(response.contains("Bob"), "Bob is out of the first 2 rows, but was returned by SELECT * FROM marks LIMIT 2;");
+
+        response = sendCommandToServer("SELECT name FROM marks LIMIT 2 OFFSET 1;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertFalse(response.contains("Steve"), "Steve is skipped by the offset, but was returned by SELECT name FROM marks LIMIT 2 OFFSET 1;");
+        assertTrue(response.contains("Dave"), "Dave was not returned by SELECT name FROM marks LIMIT 2 OFFSET 1;");
+        assertTrue(response.contains("Bob"), "Bob was not returned by SELECT name FROM marks LIMIT 2 OFFSET 1;");
+        assertFalse(response.contains("Clive"), "Clive is out of the limit, but was returned by SELECT name FROM marks LIMIT 2 OFFSET 1;");
+
+        response = sendCommandToServer("SELECT name FROM marks WHERE pass == FALSE LIMIT 1 offset 1;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertFalse(response.contains("Bob"), "Bob is skipped by the offset, but was returned by SELECT name FROM marks WHERE pass == FALSE LIMIT 1 offset 1;");
+        assertTrue(response.contains("Clive"), "Clive was not returned by SELECT name FROM marks WHERE pass == FALSE LIMIT 1 offset 1;");
+
+        response = sendCommandToServer("SELECT name FROM marks WHERE (mark > 30) limit 0;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertFalse(response.contains("Steve"), "No rows should be returned by SELECT name FROM marks WHERE (mark > 30) limit 0;");
+
+        response = sendCommandToServer("SELECT name FROM marks LIMIT -1;");
+        assertTrue(response.contains("[ERROR]"), "A negative limit was used, however an [ERROR] tag was not returned");
+        response = sendCommandToServer("SELECT name FROM marks LIMIT 1 OFFSET;");
+        assertTrue(response.contains("[ERROR]"), "An OFFSET without amount was used, however an [ERROR] tag was not returned");
+        response = sendCommandToServer("SELECT name FROM marks OFFSET 1;");
+        assertTrue(response.contains("[ERROR]"), "An OFFSET without LIMIT was used, however an [ERROR] tag was not returned");
+    }
+
+    @Test
+    public void testSelectWithOrderBy() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65, TRUE);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Dave', 9, TRUE);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Bob', 35.5, FALSE);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Clive', 100, FALSE);");
+
+        String response = sendCommandToServer("SELECT name FROM marks ORDER BY mark;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.indexOf("Dave") < response.indexOf("Bob"), "Marks should be compared as numbers by SELECT name FROM marks ORDER BY mark;");
+        assertTrue(response.indexOf("Bob") < response.indexOf("Steve"), "Marks should be in ascending order by SELECT name FROM marks ORDER BY mark;");
+        assertTrue(response.indexOf("Steve") < response.indexOf("Clive"), "Marks should be compared as numbers by SELECT name FROM marks ORDER BY mark;");
+
+        response = sendCommandToServer("SELECT name FROM marks WHERE mark > 10 ORDER BY marks.name DESC;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertFalse(response.contains("Dave"), "Dave does not match the condition, but was returned by SELECT name FROM marks WHERE mark > 10 ORDER BY marks.name DESC;");
+        assertTrue(response.indexOf("Steve") < response.indexOf("Clive"), "Names should be in descending order by SELECT name FROM marks WHERE mark > 10 ORDER BY marks.name DESC;");
+        assertTrue(response.indexOf("Clive") < response.indexOf("Bob"), "Names should be in descending order by SELECT name FROM marks WHERE mark > 10 ORDER BY marks.name DESC;");
+
+        response = sendCommandToServer("SELECT name FROM marks ORDER BY mark DESC LIMIT 2;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.indexOf("Clive") < response.indexOf("Steve"), "The top marks should be returned first by SELECT name FROM marks ORDER BY mark DESC LIMIT 2;");
+        assertFalse(response.contains("Bob"), "Bob is out of the top 2 marks, but was returned by SELECT name FROM marks ORDER BY mark DESC LIMIT 2;");
+
+        response = sendCommandToServer("SELECT name FROM marks ORDER BY id DESC LIMIT 1 OFFSET 1;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("Bob"), "Bob has the second largest id, but was not returned by SELECT name FROM marks ORDER BY id DESC LIMIT 1 OFFSET 1;");
+        assertFalse(response.contains("Clive"), "Clive is skipped by the offset, but was returned by SELECT name FROM marks ORDER BY id DESC LIMIT 1 OFFSET 1;");
+
+        response = sendCommandToServer("SELECT name FROM marks ORDER BY grade;");
+        assertTrue(response.contains("[ERROR]"), "Ordering by a non-existing column, however an [ERROR] tag was not returned");
+        response = sendCommandToServer("SELECT name FROM marks ORDER mark;");
+        assertTrue(response.contains("[ERROR]"), "ORDER without BY was used, however an [ERROR] tag was not returned");
+    }
+
+    @Test
+    public void testSelectWithAggregates() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass, class);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65, TRUE, 'A');");
+        sendCommandToServer("INSERT INTO marks VALUES ('Dave', 55, TRUE, 'B');");
+        sendCommandToServer("INSERT INTO marks VALUES ('Bob', 35, FALSE, 'A');");
+        sendCommandToServer("INSERT INTO marks VALUES ('Clive', 20.5, FALSE, NULL);");
+
+        String response = sendCommandToServer("SELECT COUNT(*), SUM(mark), MIN(mark), MAX(name) FROM marks;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("COUNT(*)\tSUM(mark)\tMIN(mark)\tMAX(name)"), "Aggregate titles were not returned by SELECT COUNT(*), SUM(mark), MIN(mark), MAX(name) FROM marks;");
+        assertTrue(response.contains("4\t175.5\t20.5\tSteve"), "Wrong aggregates were returned by SELECT COUNT(*), SUM(mark), MIN(mark), MAX(name) FROM marks;");
+
+        response = sendCommandToServer("SELECT count(class), AVG(mark) FROM marks WHERE pass == TRUE;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("2\t60.0"), "Wrong aggregates were returned by SELECT count(class), AVG(mark) FROM marks WHERE pass == TRUE;");
+
+        response = sendCommandToServer("SELECT class, COUNT(*), SUM(mark) FROM marks GROUP BY class ORDER BY class DESC;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("A\t2\t100"), "Wrong group was returned by SELECT class, COUNT(*), SUM(mark) FROM marks GROUP BY class ORDER BY class DESC;");
+        assertTrue(response.contains("B\t1\t55"), "Wrong group was returned by SELECT class, COUNT(*), SUM(mark) FROM marks GROUP BY class ORDER BY class DESC;");
+        assertTrue(response.contains("NULL\t1\t20.5"), "Wrong group was returned by SELECT class, COUNT(*), SUM(mark) FROM marks GROUP BY class ORDER BY class DESC;");
+        assertTrue(response.indexOf("B\t1") < response.indexOf("A\t2"), "Groups should be in descending order by SELECT class, COUNT(*), SUM(mark) FROM marks GROUP BY class ORDER BY class DESC;");
+
+        response = sendCommandToServer("SELECT MAX(name) FROM marks WHERE mark < 60 GROUP BY pass;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("Dave"), "Wrong group was returned by SELECT MAX(name) FROM marks WHERE mark < 60 GROUP BY pass;");
+        assertTrue(response.contains("Clive"), "Wrong group was returned by SELECT MAX(name) FROM marks WHERE mark < 60 GROUP BY pass;");
+        assertFalse(response.contains("Steve"), "Steve does not match the condition, but was returned by SELECT MAX(name) FROM marks WHERE mark < 60 GROUP BY pass;");
+
+        response = sendCommandToServer("SELECT COUNT(*) FROM marks WHERE mark > 100;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("COUNT(*)\t\n0"), "COUNT(*) should be 0 when no rows match by SELECT COUNT(*) FROM marks WHERE mark > 100;");
+
+        response = sendCommandToServer("SELECT name, COUNT(*) FROM marks GROUP BY class;");
+        assertTrue(response.contains("[ERROR]"), "Selecting a column which is not grouped, however an [ERROR] tag was not returned");
+        response = sendCommandToServer("SELECT SUM(*) FROM marks;");
+        assertTrue(response.contains("[ERROR]"), "Using * in SUM, however an [ERROR] tag was not returned");
+        response = sendCommandToServer("SELECT COUNT(grade) FROM marks;");
+        assertTrue(response.contains("[ERROR]"), "Counting a non-existing column, however an [ERROR] tag was not returned");
+    }
+
+    @Test
+    public void testSelectAggregatesFromMetadata() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Dave', NULL);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Bob', 35);");
+        sendCommandToServer("DELETE FROM marks WHERE name == 'Bob';");
+        sendCommandToServer("ALTER TABLE marks ADD pass;");
+
+        String response = sendCommandToServer("SELECT COUNT(*), COUNT(mark), MIN(mark), MAX(mark), COUNT(pass) FROM marks;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("2\t1\t65\t65\t0"), "Wrong metadata was returned by SELECT COUNT(*), COUNT(mark), MIN(mark), MAX(mark), COUNT(pass) FROM marks;");
+
+        // Create a new server object
+        server = new DBServer();
+        sendCommandToServer("USE " + randomName + ";");
+        response = sendCommandToServer("SELECT COUNT(*), MAX(name) FROM marks;");
+        assertTrue(response.contains("2\tSteve"), "Metadata was not rebuilt after restart by SELECT COUNT(*), MAX(name) FROM marks;");
+    }
+
+    @Test
+    public void testSelectDistinct() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, pass, class);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', TRUE, 'A');");
+        sendCommandToServer("INSERT INTO marks VALUES ('Dave', TRUE, 'B');");
+        sendCommandToServer("INSERT INTO marks VALUES ('Bob', FALSE, 'A');");
+        sendCommandToServer("INSERT INTO marks VALUES ('Clive', FALSE, 'A');");
+
+        String response = sendCommandToServer("SELECT DISTINCT class FROM marks;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertEquals(response.indexOf("A"), response.lastIndexOf("A"), "Duplicated values were returned by SELECT DISTINCT class FROM marks;");
+        assertTrue(response.contains("B"), "B was not returned by SELECT DISTINCT class FROM marks;");
+
+        response = sendCommandToServer("SELECT distinct pass, class FROM marks WHERE name != 'Dave' ORDER BY pass;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("FALSE\tA\t\nTRUE\tA"), "Wrong rows were returned by SELECT distinct pass, class FROM marks WHERE name != 'Dave' ORDER BY pass;");
+
+        response = sendCommandToServer("SELECT DISTINCT class FROM marks LIMIT 1 OFFSET 1;");
+        assertTrue(response.contains("[OK]"), "A valid query was made, however an [OK] tag was not returned");
+        assertTrue(response.contains("B"), "The second distinct value was not returned by SELECT DISTINCT class FROM marks LIMIT 1 OFFSET 1;");
+        assertFalse(response.contains("A"), "The first distinct value was skipped, but returned by SELECT DISTINCT class FROM marks LIMIT 1 OFFSET 1;");
+    }
+
+    // PREPARED STATEMENTS
+    @Test
+    public void testStatementCacheReusesTemplates() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65, TRUE);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Dave', 55, TRUE);");
+        long hitCount = server.getStatementCache().getHitCount();
+
+        String response = sendCommandToServer("SELECT name FROM marks WHERE mark > 60;");
+        assertTrue(response.contains("Steve"), "Steve was not returned by SELECT name FROM marks WHERE mark > 60;");
+        response = sendCommandToServer("select name from marks where mark > 50;");
+        assertTrue(response.contains("Steve") && response.contains("Dave"), "A cached statement was bound to the wrong literal by select name from marks where mark > 50;");
+        assertEquals(hitCount + 1, server.getStatementCache().getHitCount(), "Statements differing only in literals should share a cached template");
+
+        response = sendCommandToServer("SELECT name FROM marks WHERE mark > ?;");
+        assertTrue(response.contains("[ERROR]"), "A placeholder outside of a prepared statement was accepted");
+        sendCommandToServer("ALTER TABLE marks ADD age;");
+        assertEquals(0, server.getStatementCache().getSize(), "Changing a table should empty the statement cache");
+    }
+
+    @Test
+    public void testPrepareAndExecute() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        assertTrue(sendCommandToServer("PREPARE addMark AS INSERT INTO marks VALUES (?, ?, TRUE);").contains("[OK]"));
+        assertTrue(sendCommandToServer("EXECUTE addMark ('Steve', 65);").contains("[OK]"));
+        assertTrue(sendCommandToServer("EXECUTE addMark ('Dave', 55);").contains("[OK]"));
+        sendCommandToServer("PREPARE passed AS SELECT name FROM marks WHERE mark > ? LIMIT ?;");
+
+        String response = sendCommandToServer("EXECUTE passed (60, 10);");
+        assertTrue(response.contains("Steve") && !response.contains("Dave"), "EXECUTE passed (60, 10); did not bind its parameters in order");
+        response = sendCommandToServer("EXECUTE passed (50, 1);");
+        assertTrue(response.contains("Steve") && !response.contains("Dave"), "EXECUTE passed (50, 1); did not bind the LIMIT parameter");
+        assertTrue(sendCommandToServer("EXECUTE passed (50);").contains("[ERROR]"), "A prepared statement was executed with too few parameters");
+        assertTrue(sendCommandToServer("PREPARE dropMarks AS DROP TABLE marks;").contains("[ERROR]"), "DROP should not be preparable");
+
+        assertTrue(sendCommandToServer("DEALLOCATE passed;").contains("[OK]"));
+        assertTrue(sendCommandToServer("EXECUTE passed (50, 1);").contains("[ERROR]"), "A deallocated statement was still executed");
+    }
+
+    // CONNECTIONS
+    @Test
+    public void testConcurrentCommands() throws InterruptedException {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark);");
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String name = "'client" + i + "'";
+            clients.add(Thread.ofVirtual().start(() -> {
+                for (int j = 0; j < 10; j++) {
+                    server.handleCommand("INSERT INTO marks VALUES (" + name + ", " + j + ");");
+                }
+            }));
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        String response = sendCommandToServer("SELECT COUNT(*) FROM marks;");
+        assertTrue(response.contains("80"), "Commands sent at the same time by several clients were lost");
+        response = sendCommandToServer("SELECT id FROM marks WHERE id == 80;");
+        assertTrue(response.contains("80"), "Commands sent at the same time by several clients were given clashing ids");
+    }
+
+    @Test
+    public void testSelectorServerHoldsManyConnections() throws Exception {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65);");
+        int port;
+        try (ServerSocket freeSocket = new ServerSocket(0)) {
+            port = freeSocket.getLocalPort();
+        }
+        server.setMaxConnections(300);
+        Thread listener = Thread.ofPlatform().start(() -> assertDoesNotThrow(() -> server.selectorListenOn(port)));
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                sockets.add(connectWithRetry(port));
+            }
+            for (Socket socket : sockets) {
+                assertTrue(sendCommandOverSocket(socket, "USE " + randomName + ";").contains("[OK]"));
+            }
+            for (Socket socket : sockets) {
+                assertTrue(sendCommandOverSocket(socket, "SELECT name FROM marks WHERE mark > 60;").contains("Steve"),
+                        "A connection served by the selector did not get the rows of its query");
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            listener.interrupt();
+            listener.join();
+        }
+    }
+
+    @Test
+    public void testPipelinedCommandsRunInOrder() throws Exception {
+        String randomName = generateRandomName();
+        int port;
+        try (ServerSocket freeSocket = new ServerSocket(0)) {
+            port = freeSocket.getLocalPort();
+        }
+        Thread listener = Thread.ofPlatform().start(() -> assertDoesNotThrow(() -> server.selectorListenOn(port)));
+        try (Socket socket = connectWithRetry(port)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+            List<String> commands = new ArrayList<>(List.of("CREATE DATABASE " + randomName + ";", "USE " + randomName + ";",
+                    "CREATE TABLE marks (name, mark);"));
+            for (int i = 0; i < 50; i++) {
+                commands.add("INSERT INTO marks VALUES ('client', " + i + ");");
+            }
+            commands.add("SELECT COUNT(*) FROM marks;");
+            List<String> responses = DBClient.sendCommands(commands, reader, writer);
+            assertEquals(commands.size(), responses.size());
+            assertTrue(responses.get(responses.size() - 1).contains("50"), "Pipelined commands did not run in the order they were sent");
+
+            // Far more commands than the server queues at once, sent before reading any response
+            for (int i = 0; i < 200; i++) {
+                writer.write("UPDATE marks SET mark = " + i + " WHERE id == 1;\n");
+            }
+            writer.write("SELECT mark FROM marks WHERE id == 1;\n");
+            writer.flush();
+            for (int i = 0; i < 200; i++) {
+                assertTrue(reader.readLine().contains("[OK]"));
+                assertEquals("" + (char) 4, reader.readLine());
+            }
+            assertTrue(reader.readLine().contains("[OK]"));
+            assertTrue(reader.readLine().contains("mark"));
+            assertEquals("199", reader.readLine().strip(), "The last of the pipelined updates was not the one kept");
+        } finally {
+            listener.interrupt();
+            listener.join();
+        }
+    }
+
+    @Test
+    public void testSelectorServerAnswersCommandsSentBeforeHalfClose() throws Exception {
+        String randomName = generateRandomName();
+        int port;
+        try (ServerSocket freeSocket = new ServerSocket(0)) {
+            port = freeSocket.getLocalPort();
+        }
+        Thread listener = Thread.ofPlatform().start(() -> assertDoesNotThrow(() -> server.selectorListenOn(port)));
+        try (Socket socket = connectWithRetry(port)) {
+            List<String> commands = new ArrayList<>(List.of("CREATE DATABASE " + randomName + ";", "USE " + randomName + ";",
+                    "CREATE TABLE marks (name, mark);"));
+            for (int i = 0; i < 30; i++) {
+                commands.add("INSERT INTO marks VALUES ('client', " + i + ");");
+            }
+            commands.add("SELECT COUNT(*) FROM marks;");
+            Writer writer = new OutputStreamWriter(socket.getOutputStream());
+            writer.write(String.join("\n", commands) + "\n");
+            writer.flush();
+            // The client is done sending, but still waits for its answers
+            socket.shutdownOutput();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            String lastResponse = "";
+            for (int i = 0; i < commands.size(); i++) {
+                StringBuilder response = new StringBuilder();
+                String line;
+                while ((line = reader.readLine()) != null && !line.equals("" + (char) 4)) {
+                    response.append(line).append('\n');
+                }
+                assertTrue(response.toString().startsWith("[OK]"), "A command sent before the client closed its side was not answered");
+                lastResponse = response.toString();
+            }
+            assertTrue(lastResponse.contains("30"));
+            assertNull(reader.readLine(), "The connection was not closed once every command was answered");
+        } finally {
+            listener.interrupt();
+            listener.join();
+        }
+    }
+
+    @Test
+    public void testSelectorServerClosesConnectionOnOverlongLine() throws Exception {
+        int port;
+        try (ServerSocket freeSocket = new ServerSocket(0)) {
+            port = freeSocket.getLocalPort();
+        }
+        Thread listener = Thread.ofPlatform().start(() -> assertDoesNotThrow(() -> server.selectorListenOn(port)));
+        try (Socket socket = connectWithRetry(port)) {
+            assertTrue(sendCommandOverSocket(socket, "USE missing;").contains("[ERROR]"));
+            socket.getOutputStream().write("a".repeat(SelectorServer.MAX_LINE_LENGTH + 1).getBytes());
+            socket.getOutputStream().flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            assertTrue(reader.readLine().contains("[ERROR]"), "A line longer than any command was not answered with an error");
+            assertEquals("" + (char) 4, reader.readLine());
+            assertNull(reader.readLine(), "The connection sending an overlong line was not closed");
+        } finally {
+            listener.interrupt();
+            listener.join();
+        }
+    }
+
+    @Test
+    public void testBlockingListenerAnswersPipelinedCommandsInOrder() throws Exception {
+        String randomName = generateRandomName();
+        int port;
+        try (ServerSocket freeSocket = new ServerSocket(0)) {
+            port = freeSocket.getLocalPort();
+        }
+        Thread listener = Thread.ofPlatform().start(() -> assertDoesNotThrow(() -> server.blockingListenOn(port)));
+        try (Socket socket = connectWithRetry(port)) {
+            List<String> commands = new ArrayList<>(List.of("CREATE DATABASE " + randomName + ";", "USE " + randomName + ";",
+                    "CREATE TABLE marks (name, mark);"));
+            for (int i = 0; i < 20; i++) {
+                commands.add("INSERT INTO marks VALUES ('client', " + i + ");");
+            }
+            commands.add("SELECT COUNT(*) FROM marks;");
+            // Every command in one write, so the server reads the later ones before answering the first
+            Writer writer = new OutputStreamWriter(socket.getOutputStream());
+            writer.write(String.join("\n", commands) + "\n");
+            writer.flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            List<String> responses = new ArrayList<>();
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < commands.size(); i++) {
+                    StringBuilder response = new StringBuilder();
+                    String line;
+                    while ((line = reader.readLine()) != null && !line.equals("" + (char) 4)) {
+                        response.append(line).append('\n');
+                    }
+                    responses.add(response.toString());
+                }
+            }, "The response to the last pipelined command was never flushed");
+            for (int i = 0; i < commands.size() - 1; i++) {
+                assertTrue(responses.get(i).startsWith("[OK]"), "Pipelined command " + i + " was not answered in order");
+            }
+            assertTrue(responses.get(commands.size() - 1).contains("20"), "Pipelined commands did not run in the order they were sent");
+        } finally {
+            listener.interrupt();
+            // Wakes the listener from waiting for a connection, so it sees it was interrupted
+            new Socket("localhost", port).close();
+            listener.join();
+        }
+    }
+
+    @Test
+    public void testBlockingListenerStopsWhileClientsAreConnected() throws Exception {
+        int port;
+        try (ServerSocket freeSocket = new ServerSocket(0)) {
+            port = freeSocket.getLocalPort();
+        }
+        Thread listener = Thread.ofPlatform().start(() -> assertDoesNotThrow(() -> server.blockingListenOn(port)));
+        try (Socket socket = connectWithRetry(port)) {
+            assertTrue(sendCommandOverSocket(socket, "USE missing;").contains("[ERROR]"));
+            listener.interrupt();
+            // Wakes the listener from waiting for a connection, so it sees it was interrupted
+            new Socket("localhost", port).close();
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> listener.join(), "The listener waited for a connected client to leave");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            assertNull(reader.readLine(), "The connection of a stopped listener was left open");
+        }
+    }
+
+    @Test
+    public void testBinaryProtocolSendsTypedRows() throws Exception {
+        String randomName = generateRandomName();
+        int port;
+        try (ServerSocket freeSocket = new ServerSocket(0)) {
+            port = freeSocket.getLocalPort();
+        }
+        Thread listener = Thread.ofPlatform().start(() -> assertDoesNotThrow(() -> server.blockingListenOn(port)));
+        try (Socket socket = connectWithRetry(port)) {
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            BinaryProtocol.startSession(input, output);
+            List<QueryResult> results = DBClient.sendBinaryCommands(List.of("CREATE DATABASE " + randomName + ";",
+                    "USE " + randomName + ";", "CREATE TABLE marks (name, mark, pass, weight);",
+                    "INSERT INTO marks VALUES ('Steve', 65, TRUE, 1.5), ('Dave', 007, NULL, 2);"), input, output);
+            assertTrue(results.stream().allMatch(result -> result.getMessage().contains("[OK]")));
+
+            String query = "SELECT * FROM marks;";
+            BinaryProtocol.writeRequest(output, 42, query);
+            output.flush();
+            BinaryProtocol.Response response = BinaryProtocol.readResponse(input);
+            assertEquals(42, response.requestId());
+            assertEquals(List.of(ValueType.INTEGER, ValueType.STRING, ValueType.STRING, ValueType.BOOLEAN, ValueType.FLOAT),
+                    response.columnTypes());
+            Session textSession = server.openSession();
+            server.handleCommand("USE " + randomName + ";", textSession);
+            assertEquals(server.handleCommand(query, textSession), response.result().toString(),
+                    "The binary protocol did not send back the rows as stored");
+            assertTrue(DBClient.sendBinaryCommands(List.of("SELECT * FROM missing;"), input, output).get(0).isError());
+            textSession.close();
+        } finally {
+            listener.interrupt();
+            // Wakes the listener from waiting for a connection, so it sees it was interrupted
+            new Socket("localhost", port).close();
+            listener.join();
+        }
+    }
+
+    private static Socket connectWithRetry(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return new Socket("localhost", port);
+            } catch (IOException e) {
+                if (attempt > 50) { throw e; }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    /** Sends one command over the socket and reads its response up to the end of transmission marker. */
+    private static String sendCommandOverSocket(Socket socket, String command) throws IOException {
+        Writer writer = new OutputStreamWriter(socket.getOutputStream());
+        writer.write(command + "\n");
+        writer.flush();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null && !line.equals("" + (char) 4)) {
+            response.append(line).append('\n');
+        }
+        return response.toString();
+    }
+
+    // SESSIONS, SNAPSHOTS AND TRANSACTIONS
+    @Test
+    public void testConcurrentReadsAndWrites() throws InterruptedException {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark);");
+        List<Thread> clients = new ArrayList<>();
+        List<String> failedResponses = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            clients.add(Thread.ofVirtual().start(() -> {
+                for (int j = 0; j < 20; j++) {
+                    server.handleCommand("INSERT INTO marks VALUES ('Steve', " + j + ");");
+                }
+            }));
+            clients.add(Thread.ofVirtual().start(() -> {
+                for (int j = 0; j < 20; j++) {
+                    String response = server.handleCommand("SELECT name FROM marks WHERE mark >= 0 ORDER BY mark DESC;");
+                    if (!response.contains("[OK]")) { failedResponses.add(response); }
+                }
+            }));
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        assertTrue(failedResponses.isEmpty(), "Reading a table while it was written failed with " + failedResponses);
+        String response = sendCommandToServer("SELECT COUNT(*) FROM marks;");
+        assertTrue(response.contains("80"), "Rows inserted while the table was read were lost");
+    }
+
+    @Test
+    public void testSessionsKeepTheirOwnState() {
+        String firstName = generateRandomName();
+        String secondName = generateRandomName();
+        Session firstSession = server.openSession();
+        Session secondSession = server.openSession();
+        server.handleCommand("CREATE DATABASE " + firstName + ";", firstSession);
+        server.handleCommand("CREATE DATABASE " + secondName + ";", secondSession);
+        server.handleCommand("USE " + firstName + ";", firstSession);
+        server.handleCommand("USE " + secondName + ";", secondSession);
+        server.handleCommand("CREATE TABLE marks (name);", firstSession);
+        server.handleCommand("PREPARE addMark AS INSERT INTO marks VALUES (?);", firstSession);
+
+        String response = server.handleCommand("SELECT * FROM marks;", secondSession);
+        assertTrue(response.contains("[ERROR]"), "A session saw a table of the database used by another session");
+        response = server.handleCommand("EXECUTE addMark ('Steve');", secondSession);
+        assertTrue(response.contains("[ERROR]"), "A session ran a statement prepared by another session");
+        assertTrue(server.handleCommand("EXECUTE addMark ('Steve');", firstSession).contains("[OK]"));
+        assertEquals(firstName, firstSession.getDB().getDBName());
+        assertEquals(secondName, secondSession.getDB().getDBName());
+    }
+
+    @Test
+    public void testSessionsShareLoadedDatabases() {
+        String randomName = generateRandomName();
+        Session firstSession = server.openSession();
+        Session secondSession = server.openSession();
+        server.handleCommand("CREATE DATABASE " + randomName + ";", firstSession);
+        server.handleCommand("USE " + randomName + ";", firstSession);
+        server.handleCommand("USE " + randomName + ";", secondSession);
+        assertTrue(firstSession.getDB() == secondSession.getDB(), "Sessions using the same database should share one loaded copy");
+        assertEquals(2, server.getCatalog().getReferenceCount(randomName));
+
+        server.handleCommand("CREATE TABLE marks (name);", firstSession);
+        server.handleCommand("INSERT INTO marks VALUES ('Steve');", firstSession);
+        String response = server.handleCommand("SELECT * FROM marks;", secondSession);
+        assertTrue(response.contains("Steve"), "A row inserted by one session was not seen by another session using the same database");
+
+        firstSession.close();
+        assertEquals(1, server.getCatalog().getReferenceCount(randomName));
+        secondSession.close();
+        assertFalse(server.getCatalog().isLoaded(randomName), "A database no session uses should be unloaded");
+
+        Session thirdSession = server.openSession();
+        server.handleCommand("USE " + randomName + ";", thirdSession);
+        server.handleCommand("USE " + randomName + ";", secondSession);
+        server.handleCommand("DROP DATABASE " + randomName + ";", thirdSession);
+        assertEquals(null, secondSession.getDB(), "A session kept using a database dropped by another session");
+    }
+
+    @Test
+    public void testSlowDatabaseLoadDoesNotBlockOtherDatabases() throws Exception {
+        Catalog catalog = new Catalog();
+        CountDownLatch isLoading = new CountDownLatch(1);
+        CountDownLatch finishLoading = new CountDownLatch(1);
+        AtomicInteger loadAmount = new AtomicInteger();
+        Catalog.DatabaseLoader slowLoader = name -> {
+            loadAmount.incrementAndGet();
+            isLoading.countDown();
+            try {
+                finishLoading.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Database(name);
+        };
+        List<Database> slowDatabases = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            threads.add(Thread.ofVirtual().start(() -> assertDoesNotThrow(() -> slowDatabases.add(catalog.acquire("slow", slowLoader)))));
+        }
+        isLoading.await();
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            Database database = catalog.acquire("fast", Database::new);
+            catalog.release(database);
+            catalog.drop("other");
+        }, "A slow load held up a database of another name");
+        finishLoading.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, loadAmount.get(), "A database being loaded was loaded again by a second session");
+        assertTrue(slowDatabases.get(0) == slowDatabases.get(1));
+        assertEquals(2, catalog.getReferenceCount("slow"));
+    }
+
+    @Test
+    public void testTransactionCommitAndRollback() {
+        String randomName = generateRandomName();
+        Session firstSession = server.openSession();
+        Session secondSession = server.openSession();
+        server.handleCommand("CREATE DATABASE " + randomName + ";", firstSession);
+        server.handleCommand("USE " + randomName + ";", firstSession);
+        server.handleCommand("USE " + randomName + ";", secondSession);
+        server.handleCommand("CREATE TABLE marks (name, mark);", firstSession);
+
+        assertTrue(server.handleCommand("BEGIN;", firstSession).contains("[OK]"));
+        server.handleCommand("INSERT INTO marks VALUES ('Steve', 65), ('Dave', 55);", firstSession);
+        server.handleCommand("UPDATE marks SET mark = 70 WHERE name == 'Steve';", firstSession);
+        assertTrue(server.handleCommand("SELECT * FROM marks;", firstSession).contains("70"), "A transaction did not see its own writes");
+        assertFalse(server.handleCommand("SELECT * FROM marks;", secondSession).contains("Steve"), "Another session saw the writes of an open transaction");
+        assertTrue(server.handleCommand("CREATE TABLE other (name);", firstSession).contains("[ERROR]"));
+        assertTrue(server.handleCommand("COMMIT;", firstSession).contains("[OK]"));
+        assertTrue(server.handleCommand("SELECT * FROM marks;", secondSession).contains("70"), "Committed writes were not seen by another session");
+        DBServer reloadedServer = new DBServer();
+        Session reloadedSession = reloadedServer.openSession();
+        reloadedServer.handleCommand("USE " + randomName + ";", reloadedSession);
+        assertTrue(reloadedServer.handleCommand("SELECT * FROM marks;", reloadedSession).contains("Dave"), "Committed writes were not saved");
+
+        server.handleCommand("BEGIN;", firstSession);
+        server.handleCommand("DELETE FROM marks WHERE name == 'Steve';", firstSession);
+        server.handleCommand("INSERT INTO marks VALUES ('Bob', 35);", firstSession);
+        assertFalse(server.handleCommand("SELECT * FROM marks;", firstSession).contains("Steve"));
+        assertTrue(server.handleCommand("ROLLBACK;", firstSession).contains("[OK]"));
+        String response = server.handleCommand("SELECT * FROM marks;", firstSession);
+        assertTrue(response.contains("Steve"), "A rolled back delete was kept");
+        assertFalse(response.contains("Bob"), "A rolled back insert was kept");
+        server.handleCommand("INSERT INTO marks VALUES ('Clive', 20);", secondSession);
+        assertTrue(server.handleCommand("SELECT id FROM marks WHERE name == 'Clive';", secondSession).contains("3"));
+        assertTrue(server.handleCommand("COMMIT;", firstSession).contains("[ERROR]"));
+    }
+
+    // CURSORS
+    @Test
+    public void testCursorFetchesRowsInBatches() {
+        String randomName = generateRandomName();
+        Session session = server.openSession();
+        server.handleCommand("CREATE DATABASE " + randomName + ";", session);
+        server.handleCommand("USE " + randomName + ";", session);
+        server.handleCommand("CREATE TABLE marks (name, mark);", session);
+        server.handleCommand("INSERT INTO marks VALUES ('Steve', 65), ('Dave', 55), ('Bob', 35), ('Clive', 20), ('Anna', 80);", session);
+
+        assertTrue(server.handleCommand("DECLARE c CURSOR FOR SELECT name FROM marks WHERE mark > 30 ORDER BY id DESC;", session).contains("[OK]"));
+        server.handleCommand("DELETE FROM marks WHERE name == 'Bob';", session);
+        String response = server.handleCommand("FETCH 2 FROM c;", session);
+        assertTrue(response.contains("Anna") && response.contains("Bob"), "A cursor did not read from the snapshot it was declared on");
+        assertFalse(response.contains("Dave"), "A cursor fetched more rows than asked for");
+        response = server.handleCommand("FETCH 2 FROM c;", session);
+        assertTrue(response.contains("Dave") && response.contains("Steve"));
+        assertFalse(server.handleCommand("FETCH 2 FROM c;", session).contains("Clive"), "A cursor fetched a row not matching its condition");
+        assertTrue(server.handleCommand("DECLARE c CURSOR FOR SELECT * FROM marks;", session).contains("[ERROR]"));
+        assertTrue(server.handleCommand("CLOSE c;", session).contains("[OK]"));
+        assertTrue(server.handleCommand("FETCH 2 FROM c;", session).contains("[ERROR]"));
+
+        server.handleCommand("DECLARE sorted CURSOR FOR SELECT name FROM marks ORDER BY mark LIMIT 3;", session);
+        response = server.handleCommand("FETCH 2 FROM sorted;", session);
+        assertTrue(response.contains("Clive") && response.contains("Dave"), "A sorted cursor did not fetch its rows in order");
+        response = server.handleCommand("FETCH 2 FROM sorted;", session);
+        assertTrue(response.contains("Steve") && !response.contains("Anna"), "A sorted cursor fetched past its limit");
+        assertTrue(server.handleCommand("FETCH FROM sorted;", session).contains("[ERROR]"));
+
+        server.handleCommand("DECLARE done CURSOR FOR SELECT name FROM marks;", session);
+        server.handleCommand("FETCH 10 FROM done;", session);
+        server.handleCommand("INSERT INTO marks VALUES ('Eve', 50);", session);
+        assertEquals(VersionClock.getLastTimestamp(), VersionClock.getOldestPinnedTimestamp(), "A cursor kept its snapshot pinned once every row was fetched");
+        server.handleCommand("DECLARE idle CURSOR FOR SELECT name FROM marks;", session);
+        server.handleCommand("INSERT INTO marks VALUES ('Fay', 45);", session);
+        assertTrue(VersionClock.getOldestPinnedTimestamp() < VersionClock.getLastTimestamp());
+        ResultCursor.closeIdleCursors(0);
+        assertEquals(VersionClock.getLastTimestamp(), VersionClock.getOldestPinnedTimestamp(), "An idle cursor kept its snapshot pinned");
+        assertTrue(server.handleCommand("FETCH 2 FROM idle;", session).contains("[ERROR]"), "An idle cursor was not closed");
+        session.close();
+    }
+
     // ALTER TABLE: ADD
     @Test
     public void testBasicAlterAddColumn() {
@@ -1412,6 +2146,21 @@ public class ExampleDBTests {
         assertFalse(response.contains("20"), "An attempt was made to update Clive's mark, but the return the original value by SELECT mark FROM marks WHERE name == 'Clive';");
     }
 
+    @Test
+    public void testUpdateStringValue() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Clive', 20, FALSE);");
+
+        String response = sendCommandToServer("UPDATE marks SET name = 'Clive Smith' WHERE mark == 20;");
+        assertTrue(response.contains("[OK]"), "A valid update query was made, however an [OK] tag was not returned");
+        response = sendCommandToServer("SELECT name FROM marks WHERE name == 'Clive Smith';");
+        assertTrue(response.contains("Clive Smith"), "Clive's name was updated, but not returned by SELECT name FROM marks WHERE name == 'Clive Smith';");
+        assertFalse(response.contains("'"), "A string literal was updated, but its quotes were stored along with it");
+    }
+
     @Test
     public void testUpdateWithCaseInsensitiveKeywords() {
         String randomName = generateRandomName();
@@ -2034,6 +2783,75 @@ public class ExampleDBTests {
         assertFalse(response.contains("[OK]"), "Inserting insufficient values, however an [OK] tag was returned");
     }
 
+    @Test
+    public void testInsertMultipleRows() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        String response = sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65, TRUE), ('Dave', 55, TRUE), ('Bob', 35, FALSE);");
+        assertTrue(response.contains("[OK]"), "Inserting several rows at once, however an [OK] tag was not returned");
+        response = sendCommandToServer("SELECT id FROM marks WHERE name == 'Bob';");
+        assertTrue(response.contains("3"), "The rows of a multi-row INSERT were not given consecutive ids");
+
+        response = sendCommandToServer("INSERT INTO marks VALUES ('Clive', 20, FALSE), ('Mike', 32);");
+        assertTrue(response.contains("[ERROR]"), "Inserting a row with insufficient values, however an [ERROR] tag was not returned");
+        response = sendCommandToServer("SELECT * FROM marks WHERE name == 'Clive';");
+        assertFalse(response.contains("Clive"), "A multi-row INSERT with an invalid row should not insert any of its rows");
+    }
+
+    @Test
+    public void testLoadData() throws IOException {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65, TRUE);");
+        File importFolder = Path.of("databases", LoadCMD.IMPORT_FOLDER_NAME).toFile();
+        File file = File.createTempFile("marks", ".csv", importFolder);
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("id,mark,name\n7,55,Dave\n8,35,'Bob'\n");
+        }
+
+        String response = sendCommandToServer("LOAD DATA '" + file.getName() + "' INTO marks;");
+        assertTrue(response.contains("[OK]"), "Loading a CSV file into a table, however an [OK] tag was not returned");
+        response = sendCommandToServer("SELECT id, pass FROM marks WHERE name == 'Bob';");
+        assertTrue(response.contains("3") && response.contains("NULL"), "Loaded rows should get new ids and NULL for columns missing from the file");
+        sendCommandToServer("USE " + randomName + ";");
+        response = sendCommandToServer("SELECT * FROM marks WHERE mark == 55;");
+        assertTrue(response.contains("Dave"), "Loaded rows were not written to disk");
+
+        response = sendCommandToServer("LOAD DATA '" + file.getName() + ".missing' INTO marks;");
+        assertTrue(response.contains("[ERROR]"), "Loading a missing file, however an [ERROR] tag was not returned");
+    }
+
+    @Test
+    public void testLoadDataOnlyReadsValidFilesFromImportFolder() throws IOException {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark);");
+        File outsideFile = File.createTempFile("secret", ".csv");
+        outsideFile.deleteOnExit();
+        try (FileWriter writer = new FileWriter(outsideFile)) {
+            writer.write("hunter2\n");
+        }
+        String response = sendCommandToServer("LOAD DATA '" + outsideFile.getAbsolutePath() + "' INTO marks;");
+        assertTrue(response.contains("[ERROR]"), "A file outside the import folder was loaded");
+        assertFalse(response.contains("hunter2"), "An error echoed the contents of a file");
+        response = sendCommandToServer("LOAD DATA '../../" + outsideFile.getName() + "' INTO marks;");
+        assertTrue(response.contains("[ERROR]"), "A path leading out of the import folder was loaded");
+
+        File file = File.createTempFile("marks", ".csv", Path.of("databases", LoadCMD.IMPORT_FOLDER_NAME).toFile());
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("name,mark\nSteve,65\n\"Da\tve\",55\n");
+        }
+        assertTrue(sendCommandToServer("LOAD DATA '" + file.getName() + "' INTO marks;").contains("[ERROR]"), "A field holding a tab was loaded");
+        assertFalse(sendCommandToServer("SELECT * FROM marks;").contains("Steve"), "Rows of a file with an invalid field were loaded");
+    }
+
     @Test
     public void testConditionWithInvalidTokens() {
         String randomName = generateRandomName();
@@ -2094,7 +2912,47 @@ public class ExampleDBTests {
         sendCommandToServer("USE " + randomName + ";");
         sendCommandToServer("INSERT INTO marks VALUES ('Mike', 24, TRUE);");
         String response = sendCommandToServer("SELECT id FROM marks WHERE name LIKE 'ike';");
-        assertTrue(response.contains("2"), "New data with using updated pk was inserted, but wrong id was returned by SELECT id FROM marks WHERE name LIKE 'ike';");
+        // Ids reserved before the restart are skipped, at most one block of them
+        int id = Integer.parseInt(response.strip().split("\n")[2].strip());
+        assertTrue(id >= 2 && id <= 2 + PrimaryKeySequence.BLOCK_SIZE, "New data with using updated pk was inserted, but wrong id was returned by SELECT id FROM marks WHERE name LIKE 'ike';");
+    }
+
+    @Test
+    public void testDeletedIdIsNotReusedAfterRestart() {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Steve', 65, TRUE);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Dave', 55, TRUE);");
+        sendCommandToServer("DELETE FROM marks WHERE name == 'Dave';");
+        server = new DBServer();
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("INSERT INTO marks VALUES ('Mike', 24, TRUE);");
+        String response = sendCommandToServer("SELECT id FROM marks WHERE name == 'Mike';");
+        int id = Integer.parseInt(response.strip().split("\n")[2].strip());
+        assertTrue(id > 2, "The id of a deleted row was handed out again after a restart");
+        assertTrue(id <= 3 + PrimaryKeySequence.BLOCK_SIZE, "A restart skipped more than one block of ids");
+    }
+
+    @Test
+    public void testInsertsWriteConfigOncePerBlock() throws IOException {
+        String randomName = generateRandomName();
+        sendCommandToServer("CREATE DATABASE " + randomName + ";");
+        sendCommandToServer("USE " + randomName + ";");
+        sendCommandToServer("CREATE TABLE marks (name, mark);");
+        Path configPath = Path.of("databases", randomName.toLowerCase(), "marks_config.tab");
+        String config = Files.readString(configPath);
+        int writeAmount = 0;
+        int insertAmount = 300;
+        for (int i = 0; i < insertAmount; i++) {
+            sendCommandToServer("INSERT INTO marks VALUES ('Steve', " + i + ");");
+            String nextConfig = Files.readString(configPath);
+            if (!nextConfig.equals(config)) { writeAmount++; }
+            config = nextConfig;
+        }
+        int blockAmount = (insertAmount + PrimaryKeySequence.BLOCK_SIZE - 1) / PrimaryKeySequence.BLOCK_SIZE;
+        assertEquals(blockAmount, writeAmount, "The config file was rewritten more often than once per reserved block");
     }
 
     // Test to make sure that the [ERROR] tag is returned in the case of an error (and NOT the [OK] tag)
@@ -2290,4 +3148,269 @@ public class ExampleDBTests {
             fail("Exception occurred: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // LEXER, PARSER AND STORAGE INTERNALS
+    @Test
+    public void testLexerTypesTokens() {
+        try {
+            List<Token> tokens = new Lexer("SELECT name FROM marks WHERE(mark>=-3.5 AND name!='a  b');").tokenise();
+            String[] texts = {"SELECT", "name", "FROM", "marks", "WHERE", "(", "mark", ">=", "-3.5", "AND", "name", "!=", "'a  b'", ")", ";"};
+            TokenType[] types = {TokenType.KEYWORD, TokenType.IDENTIFIER, TokenType.KEYWORD, TokenType.IDENTIFIER,
+                    TokenType.KEYWORD, TokenType.SYMBOL, TokenType.IDENTIFIER, TokenType.OPERATOR, TokenType.FLOAT_LITERAL,
+                    TokenType.KEYWORD, TokenType.IDENTIFIER, TokenType.OPERATOR, TokenType.STRING_LITERAL,
+                    TokenType.SYMBOL, TokenType.SYMBOL};
+            assertEquals(texts.length, tokens.size());
+            for (int i = 0; i < texts.length; i++) {
+                assertEquals(texts[i], tokens.get(i).getText());
+                assertEquals(types[i], tokens.get(i).getType());
+            }
+            assertEquals(29, tokens.get(6).getPosition());
+        } catch (ParseException e) {
+            fail("Exception occurred: " + e.getMessage());
+        }
+        assertThrows(ParseException.class, () -> new Lexer("SELECT * FROM marks WHERE name == 'Bob;").tokenise());
+        assertThrows(ParseException.class, () -> new Lexer("INSERT INTO marks VALUES ('Bo\tb');").tokenise());
+        assertEquals("a  b", Lexer.readLiteral("'a  b'").getValue());
+        assertEquals(TokenType.INTEGER_LITERAL, Lexer.readLiteral("-7").getType());
+        assertNull(Lexer.readLiteral("name"), "A word which is no literal was read as one");
+    }
+
+    @Test
+    public void testParserBuildsCommand() {
+        try {
+            DBCmd cmd = new Parser(new Lexer("SELECT marks.name FROM Marks WHERE (mark > 50 AND pass == TRUE) OR name LIKE 'e' ORDER BY mark DESC LIMIT 2;").tokenise()).parse();
+            assertTrue(cmd instanceof SelectCMD);
+            SelectCMD selectCmd = (SelectCMD) cmd;
+            assertEquals(List.of("name"), selectCmd.colNames);
+            assertEquals(List.of("marks"), selectCmd.tableNames);
+            assertEquals("mark", selectCmd.orderColumn);
+            assertTrue(selectCmd.isDescending);
+            assertEquals(2, selectCmd.limit);
+            assertEquals("OR", selectCmd.condition.boolOperator);
+            assertEquals("AND", selectCmd.condition.subConditions.get(0).boolOperator);
+            assertEquals("'e'", selectCmd.condition.subConditions.get(1).value);
+        } catch (ParseException e) {
+            fail("Exception occurred: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testValueTypeClassifiesStoredValues() {
+        assertEquals(ValueType.INTEGER, ValueType.parseType("-12"));
+        assertEquals(ValueType.FLOAT, ValueType.parseType("+1.50"));
+        assertEquals(ValueType.STRING, ValueType.parseType("1."));
+        assertEquals(ValueType.STRING, ValueType.parseType("1.2.3"));
+        assertEquals(ValueType.BOOLEAN, ValueType.parseType("true"));
+        assertEquals(ValueType.NULL, ValueType.parseType("NULL"));
+        assertEquals(ValueType.STRING, ValueType.parseType(""));
+        assertTrue(ValueType.compareValues("9", "10.5") < 0, "Numbers were not compared numerically");
+        assertTrue(ValueType.compareValues("10", "TRUE") < 0 && ValueType.compareValues("abc", "NULL") < 0);
+    }
+
+    @Test
+    public void testKeywordLookup() {
+        for (DBKeyWords keyword : DBKeyWords.values()) {
+            assertTrue(DBKeyWords.isKeyword(keyword.name().toLowerCase()));
+            assertTrue(DBKeyWords.isTargetType(keyword, keyword.name()));
+        }
+        for (CmdType cmdType : CmdType.values()) {
+            assertTrue(CmdType.isCmdType(cmdType.name().toLowerCase()));
+        }
+        assertFalse(DBKeyWords.isKeyword("marks"));
+        assertFalse(DBKeyWords.isKeyword("DATABASES"));
+        assertFalse(DBKeyWords.isTargetType(DBKeyWords.AND, "OR"));
+        assertThrows(ParseException.class, () -> DBKeyWords.parse("name"));
+        assertTrue(CharClass.isCharLiteral('~'));
+        assertFalse(CharClass.isCharLiteral('|'));
+        assertFalse(CharClass.isPlainText('_'));
+    }
+
+    @Test
+    public void testRowSorterMergesSpilledRuns() {
+        RowSorter sorter = new RowSorter(1, false, 1, -1, 2);
+        try {
+            sorter.add(new String[]{"1", "40"});
+            sorter.add(new String[]{"2", "NULL"});
+            sorter.add(new String[]{"3", "-5"});
+            sorter.add(new String[]{"4", "7.5"});
+            sorter.add(new String[]{"5", "7.5"});
+            List<String[]> rows = sorter.getSortedRows();
+            assertEquals(4, rows.size());
+            assertEquals("4", rows.get(0)[0]);
+            assertEquals("5", rows.get(1)[0]);
+            assertEquals("1", rows.get(2)[0]);
+            assertEquals("2", rows.get(3)[0]);
+        } catch (Exception e) {
+            fail("Exception occurred: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testHashAggregatorMergesPartitions() {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < HashAggregator.PARALLEL_THRESHOLD * 2; i++) {
+            rows.add(new String[]{Integer.toString(i), i % 2 == 0 ? "even" : "odd", Integer.toString(i)});
+        }
+        List<AggregateFunction> functions = new ArrayList<>();
+        functions.add(null);
+        functions.add(AggregateFunction.COUNT);
+        functions.add(AggregateFunction.MAX);
+        List<String[]> results = new HashAggregator(1, functions, new int[]{1, -1, 2}).aggregate(rows);
+        assertEquals(2, results.size());
+        assertEquals("even", results.get(0)[0]);
+        assertEquals(Integer.toString(HashAggregator.PARALLEL_THRESHOLD), results.get(0)[1]);
+        assertEquals(Integer.toString(HashAggregator.PARALLEL_THRESHOLD * 2 - 1), results.get(1)[2]);
+    }
+
+    @Test
+    public void testTableStatistics() {
+        Table table = new Table("testTable", 0);
+        try {
+            table.addColumn("id");
+            table.addColumn("mark");
+            table.addRowWithoutID(new ArrayList<>(List.of("12")));
+            table.addRowWithoutID(new ArrayList<>(List.of("NULL")));
+            table.addRowWithoutID(new ArrayList<>(List.of("-3.5")));
+            assertEquals(3, table.getRowCount());
+            assertEquals(1, table.getColumnStatistics(1).getNullCount());
+            assertEquals("-3.5", table.getColumnStatistics(1).getMin());
+            assertEquals("12", table.getColumnStatistics(1).getMax());
+            assertEquals("3", table.getColumnStatistics(0).getMax());
+
+            table.updateRows(List.of(1), new int[]{1}, new String[]{"5"});
+            assertEquals(0, table.getColumnStatistics(1).getNullCount());
+            assertEquals("12", table.getColumnStatistics(1).getMax());
+            table.updateRows(List.of(0), new int[]{1}, new String[]{"7"});
+            assertEquals("7", table.getColumnStatistics(1).getMax(), "The largest value was overwritten, but kept as the maximum");
+            BitSet deletedRows = new BitSet();
+            deletedRows.set(2);
+            table.deleteRows(deletedRows);
+            assertEquals(2, table.getRowCount());
+            assertEquals("5", table.getColumnStatistics(1).getMin(), "The smallest value was deleted, but kept as the minimum");
+            assertEquals("2", table.getColumnStatistics(0).getMax());
+
+            List<List<String>> dataValues = new ArrayList<>();
+            dataValues.add(new ArrayList<>(List.of("2", "NULL")));
+            table.updateDataValues(dataValues);
+            assertEquals(1, table.getRowCount());
+            assertEquals("NULL", table.getColumnStatistics(1).getMin());
+            assertEquals("2", table.getColumnStatistics(0).getMin());
+        } catch (Exception e) {
+            fail("Exception occurred: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRowCursorReadsRowsInPlace() {
+        Table table = new Table("testTable", 0);
+        try {
+            table.addColumn("id");
+            table.addColumn("mark");
+            for (String mark : List.of("10", "20", "30", "40")) {
+                table.addRowWithoutID(new ArrayList<>(List.of(mark)));
+            }
+            table.updateRows(List.of(1, 3), new int[]{1}, new String[]{"99"});
+            BitSet deletedRows = new BitSet();
+            deletedRows.set(0);
+            table.deleteRows(deletedRows);
+            RowCursor cursor = table.openCursor();
+            StringBuilder marks = new StringBuilder();
+            while (cursor.next()) {
+                marks.append(cursor.getValue(cursor.getColumnIdxByName("mark"))).append(' ');
+            }
+            assertEquals("99 30 99 ", marks.toString());
+            assertEquals("30", table.getColumnStatistics(1).getMin());
+            assertEquals("2", table.getColumnStatistics(0).getMin());
+        } catch (Exception e) {
+            fail("Exception occurred: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPinnedSnapshotKeepsOldRowVersions() {
+        Table table = new Table("testTable", 0);
+        try {
+            table.addColumn("id");
+            table.addColumn("mark");
+            table.addRowsWithoutID(List.of(List.of("10"), List.of("20")));
+            long timestamp = VersionClock.pin();
+            TableSnapshot snapshot = table.getSnapshot(timestamp);
+            table.updateRows(List.of(0), new int[]{1}, new String[]{"99"});
+            BitSet deletedRows = new BitSet();
+            deletedRows.set(1);
+            table.deleteRows(deletedRows);
+            table.addRowWithoutID(List.of("30"));
+            assertEquals("[[10], [20]]", snapshot.getDataValuesByColumns(List.of("mark")).toString());
+            assertEquals("[[99], [30]]", table.getDataValuesByColumns(List.of("mark")).toString());
+            assertEquals("20", table.getSnapshot(timestamp).getColumnStatistics(1).getMax());
+            VersionClock.unpin(timestamp);
+            table.collectGarbage();
+            assertEquals(2, table.getSnapshot(timestamp).getRowCount());
+            assertEquals("[[99], [30]]", table.getSnapshot(timestamp).getDataValuesByColumns(List.of("mark")).toString());
+        } catch (Exception e) {
+            fail("Exception occurred: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPrimaryKeysAreReservedInBlocks() throws Exception {
+        Path tablePath = Files.createTempDirectory("sequence").resolve("marks");
+        PrimaryKeySequence sequence = new PrimaryKeySequence(tablePath.toString(), 0, 0);
+        Set<Integer> keys = ConcurrentHashMap.newKeySet();
+        List<Thread> inserters = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            inserters.add(Thread.ofVirtual().start(() -> {
+                for (int j = 0; j < 100; j++) {
+                    assertDoesNotThrow(() -> keys.add(sequence.nextKeys(1)));
+                }
+            }));
+        }
+        for (Thread inserter : inserters) {
+            inserter.join();
+        }
+        assertEquals(800, keys.size(), "Inserters running at the same time were given the same id");
+        assertEquals(800, sequence.getLastKey());
+        assertTrue(sequence.getReservedKey() >= 800 && sequence.getReservedKey() <= 800 + PrimaryKeySequence.BLOCK_SIZE);
+        String config = Files.readString(Path.of(tablePath + "_config.tab"));
+        assertEquals("pk=" + sequence.getReservedKey(), config, "The reserved block was not saved to the config file");
+        assertEquals(801, sequence.nextKeys(3));
+    }
+
+    @Test
+    public void testServerLogWritesOrCountsEveryEvent() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ServerLog log = new ServerLog(new PrintStream(output, true), ServerLog.Level.INFO, 4);
+        log.debug("hidden");
+        log.info("command_received", "command", "SELECT * FROM \"marks\";");
+        int eventAmount = 10000;
+        for (int i = 0; i < eventAmount; i++) {
+            log.info("tick", "index", i);
+        }
+        log.flush();
+        String written = output.toString();
+        assertFalse(written.contains("hidden"), "An event below the log level was written");
+        assertTrue(written.contains("command=\"SELECT * FROM \\\"marks\\\";\""), "A value with spaces was not quoted");
+        long writtenAmount = written.lines().filter(line -> line.contains(" tick ")).count();
+        assertEquals(eventAmount, writtenAmount + log.getDroppedAmount(), "An event was neither written nor counted as dropped");
+
+        // The writer sleeps once the ring is empty and has to be woken by the next event, not by its idle timeout
+        assertDoesNotThrow(() -> Thread.sleep(50));
+        log.info("late");
+        assertTimeoutPreemptively(Duration.ofMillis(500), log::flush, "The idle writer was not woken by a new event");
+        assertTrue(output.toString().contains(" late"));
+    }
+
+    @Test
+    public void testRowDeduplicatorSpillsToDisk() {
+        RowDeduplicator deduplicator = new RowDeduplicator(3);
+        try {
+            for (int i = 0; i < 20; i++) {
+                deduplicator.add(new String[]{Integer.toString(i % 5), "x"});
+            }
+            assertTrue(deduplicator.isSpilled());
+            assertEquals(5, deduplicator.getDistinctRows().size());
+        } catch (Exception e) {
+            fail("Exception occurred: " + e.getMessage());
+        }
+    }
+}